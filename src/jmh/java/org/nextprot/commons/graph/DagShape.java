@@ -0,0 +1,82 @@
+package org.nextprot.commons.graph;
+
+import java.util.Random;
+
+/**
+ * Shapes of the random directed acyclic graphs generated for the benchmarks (edges go from parent to child and node
+ * n only gets parents among the nodes [0, n), so the generated graphs are acyclic).
+ */
+public enum DagShape {
+
+    /** ontology-like: one random parent per node, and a second one for 30% of the nodes */
+    GO_LIKE {
+        @Override
+        void addParents(IntGraphBuilder builder, int node, int nodeCount, Random random) {
+
+            builder.addEdge(random.nextInt(node), node);
+
+            if (random.nextInt(10) < 3) {
+                builder.addEdge(random.nextInt(node), node);
+            }
+        }
+    },
+    /** a root, about sqrt(V) children and all the other nodes below them with 1 to 3 parents */
+    WIDE_SHALLOW {
+        @Override
+        void addParents(IntGraphBuilder builder, int node, int nodeCount, Random random) {
+
+            int middleCount = Math.max(1, (int) Math.sqrt(nodeCount));
+
+            if (node <= middleCount) {
+                builder.addEdge(0, node);
+                return;
+            }
+
+            for (int i=1+random.nextInt(3) ; i>0 ; i--) {
+                builder.addEdge(1+random.nextInt(middleCount), node);
+            }
+        }
+    },
+    /** a chain with a short-cut parent for 5% of the nodes */
+    DEEP_CHAIN {
+        @Override
+        void addParents(IntGraphBuilder builder, int node, int nodeCount, Random random) {
+
+            builder.addEdge(node-1, node);
+
+            if (node > 1 && random.nextInt(20) == 0) {
+                builder.addEdge(Math.max(0, node-100) + random.nextInt(Math.min(node-1, 100)), node);
+            }
+        }
+    },
+    /** 2 to 4 parents among the 16 previous nodes: many paths reconverge */
+    DIAMOND_HEAVY {
+        @Override
+        void addParents(IntGraphBuilder builder, int node, int nodeCount, Random random) {
+
+            int window = Math.min(node, 16);
+
+            for (int i=2+random.nextInt(3) ; i>0 ; i--) {
+                builder.addEdge(node - 1 - random.nextInt(window), node);
+            }
+        }
+    };
+
+    abstract void addParents(IntGraphBuilder builder, int node, int nodeCount, Random random);
+
+    /**
+     * @return a new random graph of this shape with nodes [0, nodeCount) and 0 as single source
+     */
+    public IntGraph generate(int nodeCount, long seed) {
+
+        IntGraphBuilder builder = new IntGraphBuilder(name());
+        Random random = new Random(seed);
+
+        builder.addNode(0);
+
+        for (int node=1 ; node<nodeCount ; node++) {
+            addParents(builder, node, nodeCount, random);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,151 @@
+package org.nextprot.commons.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the main IntGraph operations on generated graphs of several shapes and sizes.
+ *
+ * Run with the gc profiler (the default of the jmh profile) to also get the allocation rate of each operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntGraphBenchmark {
+
+    /** number of precomputed query nodes */
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"GO_LIKE", "WIDE_SHALLOW", "DEEP_CHAIN", "DIAMOND_HEAVY"})
+    private DagShape shape;
+
+    @Param({"1000", "10000", "100000"})
+    private int nodeCount;
+
+    private IntGraph graph;
+    private int[] tails;
+    private int[] heads;
+    private int[] queryNodes;
+    private int[] subgraphNodes;
+    private byte[] serializedGraph;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        graph = shape.generate(nodeCount, 42);
+        tails = new int[graph.countEdges()];
+        heads = new int[graph.countEdges()];
+
+        for (int edge=0 ; edge<tails.length ; edge++) {
+            tails[edge] = graph.getTailNode(edge);
+            heads[edge] = graph.getHeadNode(edge);
+        }
+
+        Random random = new Random(7);
+
+        queryNodes = random.ints(QUERY_COUNT, 0, nodeCount).toArray();
+        subgraphNodes = random.ints(Math.max(1, nodeCount / 100), 0, nodeCount).distinct().toArray();
+        serializedGraph = serialize(graph);
+    }
+
+    private int nextQueryNode() {
+
+        query = (query + 1) % QUERY_COUNT;
+
+        return queryNodes[query];
+    }
+
+    @Benchmark
+    public IntGraph addEdge() {
+
+        IntGraph built = new IntGraph();
+
+        for (int edge=0 ; edge<tails.length ; edge++) {
+            built.addEdge(tails[edge], heads[edge]);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public IntGraph buildWithBuilder() {
+
+        return new IntGraphBuilder().addEdges(tails, heads).build();
+    }
+
+    @Benchmark
+    public int[] getAncestors() {
+
+        return graph.getAncestors(nextQueryNode());
+    }
+
+    @Benchmark
+    public int[] getDescendants() {
+
+        return graph.getDescendants(nextQueryNode());
+    }
+
+    @Benchmark
+    public boolean isAncestorOf() {
+
+        return graph.isAncestorOf(nextQueryNode(), nextQueryNode());
+    }
+
+    @Benchmark
+    public DirectedGraph calcSubgraph() {
+
+        return graph.calcSubgraph(subgraphNodes);
+    }
+
+    @Benchmark
+    public int calcHeight() throws DirectedGraph.CycleDetectedException {
+
+        // what calcHeight computes on a modified graph (IntGraph caches the order until the next mutation)
+        return TopologicalOrder.of(graph).getHeight();
+    }
+
+    @Benchmark
+    public byte[] writeExternal() throws IOException {
+
+        return serialize(graph);
+    }
+
+    @Benchmark
+    public Object readExternal() throws IOException, ClassNotFoundException {
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedGraph))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] serialize(IntGraph graph) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(graph);
+        }
+        return bytes.toByteArray();
+    }
+}
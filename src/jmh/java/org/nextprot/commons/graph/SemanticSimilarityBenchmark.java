@@ -0,0 +1,77 @@
+package org.nextprot.commons.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the semantic similarity queries on ontology-like graphs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SemanticSimilarityBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"10000", "50000"})
+    private int nodeCount;
+
+    private IntGraph graph;
+    private SemanticSimilarity similarity;
+    private int[] queryNodes;
+    private int[] matrixNodes;
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setup() throws DirectedGraph.CycleDetectedException {
+
+        graph = DagShape.GO_LIKE.generate(nodeCount, 42);
+        similarity = SemanticSimilarity.build(graph);
+
+        Random random = new Random(7);
+
+        queryNodes = random.ints(QUERY_COUNT, 0, nodeCount).toArray();
+        matrixNodes = random.ints(100, 0, nodeCount).toArray();
+    }
+
+    private int nextQueryNode() {
+
+        query = (query + 1) % QUERY_COUNT;
+
+        return queryNodes[query];
+    }
+
+    @Benchmark
+    public SemanticSimilarity build() throws DirectedGraph.CycleDetectedException {
+
+        return SemanticSimilarity.build(graph);
+    }
+
+    @Benchmark
+    public double calcLinSimilarity() {
+
+        return similarity.calcLinSimilarity(nextQueryNode(), nextQueryNode());
+    }
+
+    @Benchmark
+    public double[][] calcSimilarityMatrix() {
+
+        return similarity.calcSimilarityMatrix(matrixNodes, matrixNodes, SemanticSimilarity.Measure.RESNIK);
+    }
+}
@@ -0,0 +1,177 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TIntLongMap;
+import gnu.trove.map.hash.TIntLongHashMap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Roll-up of node counts (typically the number of annotations of each CV term) over a directed acyclic graph.
+ *
+ * The rolled-up value of a node aggregates the counts of the node and of all its distinct descendants: a descendant
+ * reached through several paths (diamonds) is only counted once. The set of counted nodes below each node is built
+ * bottom-up, level by level in parallel (see {@link TopologicalOrder#processLevels}), as a sorted array of dense count
+ * indices: a node shares the set of its successors when it has no count of its own and a single non-empty successor
+ * set, else it merges them in a per-thread bitset.
+ */
+public final class AnnotationRollup {
+
+    private static final int[] NO_MEMBERS = new int[0];
+
+    private AnnotationRollup() {
+    }
+
+    /**
+     * Roll up counts with the common fork/join pool
+     * @see #rollUp(DirectedGraph, TIntLongMap, LongBinaryOperator, ForkJoinPool)
+     */
+    public static TIntLongMap rollUp(DirectedGraph graph, TIntLongMap counts, LongBinaryOperator aggregator) throws DirectedGraph.CycleDetectedException {
+
+        return rollUp(graph, counts, aggregator, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Aggregate for every node the counts of the node and of its distinct descendants
+     * @param graph a directed acyclic graph
+     * @param counts the count of each node (nodes not found in the graph are ignored)
+     * @param aggregator an associative and commutative function combining two counts (Long::sum, Math::max...)
+     * @param pool the pool running the roll-up
+     * @return the aggregated count of each node (nodes without any count below them are not in the map)
+     * @throws DirectedGraph.CycleDetectedException if the graph contains a cycle
+     */
+    public static TIntLongMap rollUp(DirectedGraph graph, TIntLongMap counts, LongBinaryOperator aggregator, ForkJoinPool pool) throws DirectedGraph.CycleDetectedException {
+
+        FrozenIntGraph frozen = FrozenIntGraph.of(graph);
+        int nodeCount = frozen.countNodes();
+
+        // counted nodes are given a dense index
+        int[] countIndices = new int[nodeCount];
+        TLongArrayList indexedCounts = new TLongArrayList();
+
+        Arrays.fill(countIndices, -1);
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+
+            int node = frozen.nodeAt(slot);
+
+            if (counts.containsKey(node)) {
+                countIndices[slot] = indexedCounts.size();
+                indexedCounts.add(counts.get(node));
+            }
+        }
+
+        long[] values = indexedCounts.toArray();
+        int[][] members = new int[nodeCount][];
+        long[] aggregates = new long[nodeCount];
+        int[] offsets = frozen.outOffsets();
+        int[] targets = frozen.outTargets();
+        ThreadLocal<BitSet> unions = ThreadLocal.withInitial(() -> new BitSet(values.length));
+
+        frozen.calcTopologicalOrder().processLevels(TopologicalOrder.Direction.BOTTOM_UP, node -> {
+
+            int slot = frozen.slotOf(node);
+            int[] slotMembers = mergeMembers(countIndices[slot], members, targets, offsets[slot], offsets[slot+1], unions.get());
+
+            members[slot] = slotMembers;
+
+            if (slotMembers.length > 0) {
+
+                long aggregate = values[slotMembers[0]];
+
+                for (int i=1 ; i<slotMembers.length ; i++) {
+                    aggregate = aggregator.applyAsLong(aggregate, values[slotMembers[i]]);
+                }
+                aggregates[slot] = aggregate;
+            }
+        }, pool);
+
+        TIntLongMap rolledUp = new TIntLongHashMap(Math.max(16, 2 * nodeCount), 0.5f, -1, 0);
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+
+            if (members[slot].length > 0) {
+                rolledUp.put(frozen.nodeAt(slot), aggregates[slot]);
+            }
+        }
+        return rolledUp;
+    }
+
+    /**
+     * @return the sorted count indices of a node and of its descendants given the ones of its successors
+     */
+    private static int[] mergeMembers(int countIndex, int[][] members, int[] targets, int from, int to, BitSet union) {
+
+        int[] single = NO_MEMBERS;
+        int distinctSets = 0;
+
+        for (int i=from ; i<to ; i++) {
+
+            int[] successorMembers = members[targets[i]];
+
+            if (successorMembers.length > 0 && successorMembers != single) {
+                single = successorMembers;
+                distinctSets++;
+            }
+        }
+
+        if (countIndex == -1 && distinctSets <= 1) {
+            return single;
+        }
+
+        if (countIndex != -1) {
+            union.set(countIndex);
+        }
+
+        for (int i=from ; i<to ; i++) {
+
+            for (int index : members[targets[i]]) {
+                union.set(index);
+            }
+        }
+
+        int[] merged = new int[union.cardinality()];
+
+        for (int index = union.nextSetBit(0), i = 0 ; index >= 0 ; index = union.nextSetBit(index+1)) {
+            merged[i++] = index;
+        }
+        union.clear();
+
+        return merged;
+    }
+
+    /**
+     * Resolve counts given by node metadata value (a CV term accession for example)
+     * @param countsByValue the counts by metadata value (values not found in the graph are ignored)
+     * @return the count of each node, the counts of values of the same node are added
+     */
+    public static TIntLongMap toNodeCounts(DirectedGraph graph, Map<String, ? extends Number> countsByValue) {
+
+        return toNodeCounts(graph, null, countsByValue);
+    }
+
+    /**
+     * Resolve counts given by node metadata value of the given key
+     * @param key the metadata key or null to search the values of all keys
+     * @param countsByValue the counts by metadata value (values not found in the graph are ignored)
+     * @return the count of each node, the counts of values of the same node are added
+     */
+    public static TIntLongMap toNodeCounts(DirectedGraph graph, String key, Map<String, ? extends Number> countsByValue) {
+
+        TIntLongMap counts = new TIntLongHashMap();
+
+        for (Map.Entry<String, ? extends Number> entry : countsByValue.entrySet()) {
+
+            int node = (key == null) ? graph.getNodeFromMetadata(entry.getKey()) : graph.getNodeFromMetadata(key, entry.getKey());
+
+            if (node != -1) {
+                counts.adjustOrPutValue(node, entry.getValue().longValue(), entry.getValue().longValue());
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,488 @@
+package org.nextprot.commons.graph;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+/**
+ * A DirectedGraph decorator caching the ancestors and descendants of the most queried nodes.
+ *
+ * Results are kept in a Guava cache bounded by the total number of cached nodes, the least recently used results are
+ * evicted first. Each result also counts for one node so that empty results can be evicted too. Hits and misses are
+ * counted. Every other query is forwarded to the decorated graph.
+ *
+ * The cache is cleared when the graph is modified through this decorator, and before answering a query when a
+ * decorated IntGraph was modified directly (see {@link IntGraph#getModificationCount()}). Other graphs must only be
+ * modified through this decorator. Results computed while the graph is modified are not cached.
+ *
+ * Cached arrays are copied before being returned. Instances are thread-safe for queries if the decorated graph is.
+ */
+public final class CachedGraph implements DirectedGraph {
+
+    private static final int ANCESTORS = 0;
+    private static final int DESCENDANTS = 1;
+
+    private final DirectedGraph graph;
+    // results keyed by (maxDepth, operation, node) packed in a long
+    private final Cache<Long, int[]> results;
+    // incremented by each modification made through this decorator
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long seenGeneration;
+
+    /**
+     * Decorate the given graph with a cache of query results
+     * @param graph the graph to query
+     * @param maxCachedNodes the maximum total length of the cached results plus one per result
+     */
+    public CachedGraph(DirectedGraph graph, long maxCachedNodes) {
+
+        Preconditions.checkNotNull(graph, "graph should be defined");
+        Preconditions.checkArgument(maxCachedNodes >= 0, "max cached nodes should not be negative");
+
+        this.graph = graph;
+        this.results = CacheBuilder.newBuilder()
+                .maximumWeight(maxCachedNodes)
+                .<Long, int[]>weigher((key, nodes) -> 1 + nodes.length)
+                .recordStats()
+                .build();
+        this.seenGeneration = currentGeneration();
+    }
+
+    /**
+     * @return a number changed by every modification of the graph made through this decorator or directly on a
+     * decorated IntGraph
+     */
+    private long currentGeneration() {
+
+        long modificationCount = (graph instanceof IntGraph) ? ((IntGraph) graph).getModificationCount() : 0;
+
+        return generation.get() + modificationCount;
+    }
+
+    private void newGeneration() {
+
+        generation.incrementAndGet();
+        results.invalidateAll();
+    }
+
+    private static long packQuery(int operation, int node, int maxDepth) {
+
+        // negative depths mean no limit like 0
+        return ((long) Math.max(0, maxDepth) << 33) | ((long) operation << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the decorated graph
+     */
+    public DirectedGraph getGraph() {
+
+        return graph;
+    }
+
+    /**
+     * @return the number of queries answered from the cache
+     */
+    public long getHitCount() {
+
+        return results.stats().hitCount();
+    }
+
+    /**
+     * @return the number of queries computed on the decorated graph
+     */
+    public long getMissCount() {
+
+        return results.stats().missCount();
+    }
+
+    /**
+     * @return the statistics of the cache (hits, misses, evictions...)
+     */
+    public CacheStats getCacheStats() {
+
+        return results.stats();
+    }
+
+    /**
+     * Drop all cached results
+     */
+    public void invalidateCache() {
+
+        results.invalidateAll();
+    }
+
+    private int[] query(int operation, int node, int maxDepth) {
+
+        long queryGeneration = currentGeneration();
+
+        if (queryGeneration != seenGeneration) {
+            results.invalidateAll();
+            seenGeneration = queryGeneration;
+        }
+
+        Long key = packQuery(operation, node, maxDepth);
+        int[] nodes = results.getIfPresent(key);
+
+        if (nodes == null) {
+
+            nodes = (operation == ANCESTORS) ? graph.getAncestors(node) : graph.getDescendants(node, maxDepth);
+
+            // a result computed while the graph was modified is not cached, it is dropped if the graph was modified
+            // (and the cache cleared) while caching it
+            if (currentGeneration() == queryGeneration) {
+
+                results.put(key, nodes);
+
+                if (currentGeneration() != queryGeneration) {
+                    results.invalidate(key);
+                }
+            }
+        }
+        return nodes.clone();
+    }
+
+    @Override
+    public void setGraphLabel(String label) {
+
+        graph.setGraphLabel(label);
+    }
+
+    @Override
+    public String getGraphLabel() {
+
+        return graph.getGraphLabel();
+    }
+
+    @Override
+    public void addNode(int node) {
+
+        graph.addNode(node);
+        newGeneration();
+    }
+
+    @Override
+    public void addNodeMetadata(int node, String key, String value) {
+
+        graph.addNodeMetadata(node, key, value);
+    }
+
+    @Override
+    public String getNodeMetadataValue(int node, String key) {
+
+        return graph.getNodeMetadataValue(node, key);
+    }
+
+    @Override
+    public int getNodeFromMetadata(String metadata) {
+
+        return graph.getNodeFromMetadata(metadata);
+    }
+
+    @Override
+    public int getNodeFromMetadata(String key, String value) {
+
+        return graph.getNodeFromMetadata(key, value);
+    }
+
+    @Override
+    public int addEdge(int tail, int head) {
+
+        int edge = graph.addEdge(tail, head);
+
+        newGeneration();
+
+        return edge;
+    }
+
+    @Override
+    public void setEdgeLabel(int edge, String label) {
+
+        graph.setEdgeLabel(edge, label);
+    }
+
+    @Override
+    public String getEdgeLabel(int edge) {
+
+        return graph.getEdgeLabel(edge);
+    }
+
+    @Override
+    public int[] getEdgesWithLabel(String label) {
+
+        return graph.getEdgesWithLabel(label);
+    }
+
+    @Override
+    public int[] getNodes() {
+
+        return graph.getNodes();
+    }
+
+    @Override
+    public int[] getEdges() {
+
+        return graph.getEdges();
+    }
+
+    @Override
+    public int getEdge(int tail, int head) {
+
+        return graph.getEdge(tail, head);
+    }
+
+    @Override
+    public int[] getEdgesIncidentTo(int... nodes) {
+
+        return graph.getEdgesIncidentTo(nodes);
+    }
+
+    @Override
+    public int[] getInEdges(int... nodes) {
+
+        return graph.getInEdges(nodes);
+    }
+
+    @Override
+    public int[] getOutEdges(int... nodes) {
+
+        return graph.getOutEdges(nodes);
+    }
+
+    @Override
+    public int getTailNode(int edge) {
+
+        return graph.getTailNode(edge);
+    }
+
+    @Override
+    public int getHeadNode(int edge) {
+
+        return graph.getHeadNode(edge);
+    }
+
+    @Override
+    public boolean containsNode(int node) {
+
+        return graph.containsNode(node);
+    }
+
+    @Override
+    public boolean containsEdge(int edge) {
+
+        return graph.containsEdge(edge);
+    }
+
+    @Override
+    public boolean containsEdge(int tail, int head) {
+
+        return graph.containsEdge(tail, head);
+    }
+
+    @Override
+    public int[] getAncestors(int node) {
+
+        return query(ANCESTORS, node, 0);
+    }
+
+    @Override
+    public int[] getDescendants(int node) {
+
+        return query(DESCENDANTS, node, 0);
+    }
+
+    @Override
+    public int[] getDescendants(int node, int maxDepth) {
+
+        return query(DESCENDANTS, node, maxDepth);
+    }
+
+    @Override
+    public int[] getAncestors(int node, String edgeLabel) {
+
+        return graph.getAncestors(node, edgeLabel);
+    }
+
+    @Override
+    public int[] getDescendants(int node, String edgeLabel) {
+
+        return graph.getDescendants(node, edgeLabel);
+    }
+
+    @Override
+    public int[][] getAncestorsByDistance(int node, int maxDepth) {
+
+        return graph.getAncestorsByDistance(node, maxDepth);
+    }
+
+    @Override
+    public int[][] getDescendantsByDistance(int node, int maxDepth) {
+
+        return graph.getDescendantsByDistance(node, maxDepth);
+    }
+
+    @Override
+    public int[] getAncestors(int[] seeds) {
+
+        return graph.getAncestors(seeds);
+    }
+
+    @Override
+    public int[] getDescendants(int[] seeds, int maxDepth) {
+
+        return graph.getDescendants(seeds, maxDepth);
+    }
+
+    @Override
+    public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
+
+        return graph.isAncestorOf(queryAncestor, queryDescendant);
+    }
+
+    @Override
+    public int[] getPredecessors(int node) {
+
+        return graph.getPredecessors(node);
+    }
+
+    @Override
+    public int[] getSuccessors(int node) {
+
+        return graph.getSuccessors(node);
+    }
+
+    @Override
+    public int getInDegree(int node) {
+
+        return graph.getInDegree(node);
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+
+        return graph.getOutDegree(node);
+    }
+
+    @Override
+    public int[] getSources() {
+
+        return graph.getSources();
+    }
+
+    @Override
+    public int[] getSinks() {
+
+        return graph.getSinks();
+    }
+
+    @Override
+    public DirectedGraph calcSubgraph(int... nodes) {
+
+        return graph.calcSubgraph(nodes);
+    }
+
+    @Override
+    public DirectedGraph calcAncestorSubgraph(int... seeds) {
+
+        return graph.calcAncestorSubgraph(seeds);
+    }
+
+    @Override
+    public DirectedGraph calcDescendantSubgraph(int... seeds) {
+
+        return graph.calcDescendantSubgraph(seeds);
+    }
+
+    @Override
+    public SubgraphView getSubgraphView(int... nodes) {
+
+        return graph.getSubgraphView(nodes);
+    }
+
+    @Override
+    public int countNodes() {
+
+        return graph.countNodes();
+    }
+
+    @Override
+    public int countEdges() {
+
+        return graph.countEdges();
+    }
+
+    @Override
+    public boolean forEachNode(IntPredicate visitor) {
+
+        return graph.forEachNode(visitor);
+    }
+
+    @Override
+    public boolean forEachSuccessor(int node, IntPredicate visitor) {
+
+        return graph.forEachSuccessor(node, visitor);
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, IntPredicate visitor) {
+
+        return graph.forEachPredecessor(node, visitor);
+    }
+
+    @Override
+    public boolean forEachSuccessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        return graph.forEachSuccessor(node, edgeLabel, visitor);
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        return graph.forEachPredecessor(node, edgeLabel, visitor);
+    }
+
+    @Override
+    public boolean forEachAncestor(int node, IntPredicate visitor) {
+
+        return graph.forEachAncestor(node, visitor);
+    }
+
+    @Override
+    public boolean forEachDescendant(int node, int maxDepth, IntPredicate visitor) {
+
+        return graph.forEachDescendant(node, maxDepth, visitor);
+    }
+
+    @Override
+    public boolean forEachSource(IntPredicate visitor) {
+
+        return graph.forEachSource(visitor);
+    }
+
+    @Override
+    public boolean forEachSink(IntPredicate visitor) {
+
+        return graph.forEachSink(visitor);
+    }
+
+    @Override
+    public TopologicalOrder calcTopologicalOrder() throws CycleDetectedException {
+
+        return graph.calcTopologicalOrder();
+    }
+
+    @Override
+    public StronglyConnectedComponents calcStronglyConnectedComponents() {
+
+        return graph.calcStronglyConnectedComponents();
+    }
+
+    @Override
+    public TransitiveReduction calcTransitiveReduction() throws CycleDetectedException {
+
+        return graph.calcTransitiveReduction();
+    }
+}
@@ -4,6 +4,7 @@ import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 
 import java.util.Arrays;
+import java.util.function.IntPredicate;
 
 /**
  * A graph with a set of vertices connected by edges, where the edges have a direction associated with them.
@@ -52,6 +53,18 @@ public interface DirectedGraph {
      */
     int getNodeFromMetadata(String metadata);
 
+    /**
+     * @param key the metadata key
+     * @param value the metadata value
+     * @return the node having the given value for the given key or -1 if not found
+     */
+    default int getNodeFromMetadata(String key, String value) {
+
+        int node = getNodeFromMetadata(value);
+
+        return (node != -1 && value.equals(getNodeMetadataValue(node, key))) ? node : -1;
+    }
+
     /**
      * Add an edge in graph from tail to head and return its index
      * @param tail predecessor node
@@ -72,6 +85,32 @@ public interface DirectedGraph {
      */
     String getEdgeLabel(int edge);
 
+    /**
+     * @return the label of the edge tail -> head or null if not found
+     */
+    default String getEdgeLabel(int tail, int head) {
+
+        int edge = getEdge(tail, head);
+
+        return (edge != -1) ? getEdgeLabel(edge) : null;
+    }
+
+    /**
+     * @return the edges with the given label
+     */
+    default int[] getEdgesWithLabel(String label) {
+
+        TIntArrayList edges = new TIntArrayList();
+
+        for (int edge : getEdges()) {
+
+            if (label.equals(getEdgeLabel(edge))) {
+                edges.add(edge);
+            }
+        }
+        return edges.toArray();
+    }
+
     /**
      * @return an array of graph nodes
      */
@@ -148,6 +187,61 @@ public interface DirectedGraph {
      */
     int[] getDescendants(int node, int maxDepth);
 
+    /**
+     * @return the ancestors of the given node following only the edges with the given label
+     */
+    default int[] getAncestors(int node, String edgeLabel) {
+
+        return new GraphTraversal(this, edgeLabel).getAncestors(node);
+    }
+
+    /**
+     * @return the descendants of the given node following only the edges with the given label
+     */
+    default int[] getDescendants(int node, String edgeLabel) {
+
+        return new GraphTraversal(this, edgeLabel).getDescendants(node);
+    }
+
+    /**
+     * Collect in a single breadth-first traversal the ancestors of the given node grouped by shortest distance
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @return the ancestors at distance d at index d-1
+     */
+    default int[][] getAncestorsByDistance(int node, int maxDepth) {
+
+        return new GraphTraversal(this).getAncestorsByDistance(node, maxDepth);
+    }
+
+    /**
+     * Collect in a single breadth-first traversal the descendants of the given node grouped by shortest distance
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @return the descendants at distance d at index d-1
+     */
+    default int[][] getDescendantsByDistance(int node, int maxDepth) {
+
+        return new GraphTraversal(this).getDescendantsByDistance(node, maxDepth);
+    }
+
+    /**
+     * Compute in parallel the union of the ancestors of the given seeds (each node is visited once)
+     * @return ancestors of the given nodes
+     */
+    default int[] getAncestors(int[] seeds) {
+
+        return MultiSourceTraversal.getAncestors(this, seeds, 0);
+    }
+
+    /**
+     * Compute in parallel the union of the descendants of the given seeds (each node is visited once)
+     * @param maxDepth the maximum distance from the seeds (0 means no limit)
+     * @return descendants of the given nodes
+     */
+    default int[] getDescendants(int[] seeds, int maxDepth) {
+
+        return MultiSourceTraversal.getDescendants(this, seeds, maxDepth);
+    }
+
     /**
      * @return true if queryDescendant is a descendant of queryAncestor
      */
@@ -188,6 +282,33 @@ public interface DirectedGraph {
      */
     DirectedGraph calcSubgraph(int... nodes);
 
+    /**
+     * Extract the subgraph made of the given seeds and all their ancestors (seeds not found are ignored)
+     * @return the subgraph with all the edges between its nodes, their labels and the node metadata
+     */
+    default DirectedGraph calcAncestorSubgraph(int... seeds) {
+
+        return calcSubgraph(GraphTraversal.withNodesOf(this, seeds, getAncestors(seeds)));
+    }
+
+    /**
+     * Extract the subgraph made of the given seeds and all their descendants (seeds not found are ignored)
+     * @return the subgraph with all the edges between its nodes, their labels and the node metadata
+     */
+    default DirectedGraph calcDescendantSubgraph(int... seeds) {
+
+        return calcSubgraph(GraphTraversal.withNodesOf(this, seeds, getDescendants(seeds, 0)));
+    }
+
+    /**
+     * Get a read-only view of the subgraph induced by the given nodes without copying this graph
+     * @return the view filtering this graph (which must not be modified while the view is in use)
+     */
+    default SubgraphView getSubgraphView(int... nodes) {
+
+        return new SubgraphView(this, nodes);
+    }
+
     /**
      * @return the total number of graph nodes
      */
@@ -212,6 +333,119 @@ public interface DirectedGraph {
         return isAncestorOf(queryAncestor, queryDescendant);
     }
 
+    /**
+     * Visit each graph node without allocating an array
+     * @param visitor called on each node, returns false to stop the iteration
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    default boolean forEachNode(IntPredicate visitor) {
+
+        return GraphTraversal.visitAll(getNodes(), visitor);
+    }
+
+    /**
+     * Visit each successor of the given node
+     * @param visitor called on each successor, returns false to stop the iteration
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    default boolean forEachSuccessor(int node, IntPredicate visitor) {
+
+        return GraphTraversal.visitAll(getSuccessors(node), visitor);
+    }
+
+    /**
+     * Visit each predecessor of the given node
+     * @param visitor called on each predecessor, returns false to stop the iteration
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    default boolean forEachPredecessor(int node, IntPredicate visitor) {
+
+        return GraphTraversal.visitAll(getPredecessors(node), visitor);
+    }
+
+    /**
+     * Visit each successor of the given node linked by an edge with the given label
+     * @param visitor called on each successor, returns false to stop the iteration
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    default boolean forEachSuccessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        for (int edge : getOutEdges(node)) {
+
+            if (edgeLabel.equals(getEdgeLabel(edge)) && !visitor.test(getHeadNode(edge))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visit each predecessor of the given node linked by an edge with the given label
+     * @param visitor called on each predecessor, returns false to stop the iteration
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    default boolean forEachPredecessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        for (int edge : getInEdges(node)) {
+
+            if (edgeLabel.equals(getEdgeLabel(edge)) && !visitor.test(getTailNode(edge))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visit each ancestor of the given node once, nearest first
+     * @param visitor called on each ancestor, returns false to stop the traversal
+     * @return false if the traversal was stopped by the visitor else true
+     */
+    default boolean forEachAncestor(int node, IntPredicate visitor) {
+
+        return new GraphTraversal(this).visitAncestors(node, visitor);
+    }
+
+    /**
+     * Visit each descendant of the given node once, nearest first
+     * @param visitor called on each descendant, returns false to stop the traversal
+     * @return false if the traversal was stopped by the visitor else true
+     */
+    default boolean forEachDescendant(int node, IntPredicate visitor) {
+
+        return forEachDescendant(node, 0, visitor);
+    }
+
+    /**
+     * Visit each descendant of the given node up to the given depth once, nearest first
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @param visitor called on each descendant, returns false to stop the traversal
+     * @return false if the traversal was stopped by the visitor else true
+     */
+    default boolean forEachDescendant(int node, int maxDepth, IntPredicate visitor) {
+
+        return new GraphTraversal(this).visitDescendants(node, maxDepth, visitor);
+    }
+
+    /**
+     * Visit each source (indegree = 0) of the graph
+     * @param visitor called on each source, returns false to stop the iteration
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    default boolean forEachSource(IntPredicate visitor) {
+
+        return forEachNode(node -> !isSource(node) || visitor.test(node));
+    }
+
+    /**
+     * Visit each sink (outdegree = 0) of the graph
+     * @param visitor called on each sink, returns false to stop the iteration
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    default boolean forEachSink(IntPredicate visitor) {
+
+        return forEachNode(node -> !isSink(node) || visitor.test(node));
+    }
+
     default boolean isSource(int node) {
         return getInDegree(node) == 0 && getOutDegree(node) > 0;
     }
@@ -223,53 +457,50 @@ public interface DirectedGraph {
     /**
      * The height of a rooted tree is the length of the longest downward path to a leaf from the root.
      *
-     * @return the longest path from the root or -1 if it is not a tree
+     * It is computed in O(V+E) over a topological order of the graph. All roots are considered (see example of
+     * enzyme-classification-cv where it misses the root that connect children EC 1.-.-.-, EC 2.-.-.-, ..., EC 6.-.-.-).
+     *
+     * @return the longest path from the roots
+     * @throws NotATreeException if the graph has no root
+     * @throws CycleDetectedException with the path of a cycle if the graph is not acyclic
      */
     default int calcHeight() throws NotATreeException {
 
-        int[] roots = getSources();
-
-        if (roots.length == 0) {
+        // no source to visit
+        if (forEachSource(source -> false)) {
             throw new NotATreeException();
         }
 
-        class WrappedCalcLongestPath {
-            private int calcLongestPath(int node, TIntList path) throws CycleDetectedException {
-
-                if (!containsNode(node)) {
-                    throw new IllegalArgumentException("node "+ node + " was not found");
-                }
-
-                if (isSink(node)) {
-                    return path.size()-1;
-                }
-
-                TIntList lengths = new TIntArrayList();
-                for (int edge : getOutEdges(node)) {
-
-                    int nextNode = getHeadNode(edge);
+        return calcTopologicalOrder().getHeight();
+    }
 
-                    TIntList newPath = new TIntArrayList(path);
-                    newPath.add(nextNode);
+    /**
+     * Sort the graph nodes in topological order and compute their depth in O(V+E)
+     * @return the topological order with the longest path length from a source to each node
+     * @throws CycleDetectedException with the path of a cycle if the graph is not acyclic
+     */
+    default TopologicalOrder calcTopologicalOrder() throws CycleDetectedException {
 
-                    if (path.contains(nextNode)) {
-                        throw new CycleDetectedException(newPath);
-                    }
+        return TopologicalOrder.of(this);
+    }
 
-                    lengths.add(calcLongestPath(nextNode, newPath));
-                }
+    /**
+     * Compute the strongly connected components of the graph in O(V+E), even if it has cycles
+     * @return the components with the cycle groups and the condensation of the graph
+     */
+    default StronglyConnectedComponents calcStronglyConnectedComponents() {
 
-                return lengths.max();
-            }
-        }
+        return StronglyConnectedComponents.of(this);
+    }
 
-        // it is ok if there are multiple roots (see example of enzyme-classification-cv where it misses the root that
-        // connect children EC 1.-.-.-, EC 2.-.-.-, ..., EC 6.-.-.-)
-        /*if (roots.length > 1) {
-            throw new NotATreeMultipleRootsException(roots);
-        }*/
+    /**
+     * Drop the redundant edges of the graph (u -> v when v is also reachable from u through a longer path)
+     * @return the reduced copy of the graph and the dropped edges
+     * @throws CycleDetectedException if the graph is not acyclic
+     */
+    default TransitiveReduction calcTransitiveReduction() throws CycleDetectedException {
 
-        return new WrappedCalcLongestPath().calcLongestPath(roots[0], new TIntArrayList(new int[] {roots[0]}));
+        return TransitiveReduction.of(this);
     }
 
     class NotATreeException extends Exception {
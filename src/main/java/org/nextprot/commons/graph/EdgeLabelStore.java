@@ -0,0 +1,169 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dictionary-encoded store of edge labels indexed by edge id.
+ *
+ * Graphs usually have a handful of distinct edge labels (is_a, part_of...): each distinct label is stored once in a
+ * small table and each edge only holds the label code+1 in a short array (0 if the edge has no label). Edges with a
+ * given label are then found by comparing codes, without any string comparison.
+ */
+final class EdgeLabelStore {
+
+    /** maximum number of distinct labels */
+    static final int MAX_LABEL_COUNT = Short.MAX_VALUE;
+
+    private final List<String> labels;
+    private final TObjectIntMap<String> codes;
+    // the label code+1 of each edge
+    private short[] edgeCodes;
+
+    EdgeLabelStore() {
+
+        this.labels = new ArrayList<>();
+        this.codes = new TObjectIntHashMap<>(16, 0.5f, -1);
+        this.edgeCodes = new short[16];
+    }
+
+    /**
+     * Copy the labels of the first edges of another store
+     */
+    EdgeLabelStore(EdgeLabelStore other, int edgeCount) {
+
+        this.labels = new ArrayList<>(other.labels);
+        this.codes = new TObjectIntHashMap<>(Math.max(16, 2 * other.codes.size()), 0.5f, -1);
+        this.codes.putAll(other.codes);
+        this.edgeCodes = Arrays.copyOf(other.edgeCodes, edgeCount);
+    }
+
+    /**
+     * @return the label of the given edge or null if none
+     */
+    String get(int edge) {
+
+        if (edge < 0 || edge >= edgeCodes.length || edgeCodes[edge] == 0) {
+            return null;
+        }
+        return labels.get(edgeCodes[edge]-1);
+    }
+
+    /**
+     * Set the label of the given edge
+     * @param label the new label or null to remove the label
+     */
+    void put(int edge, String label) {
+
+        if (label == null) {
+
+            if (edge < edgeCodes.length) {
+                edgeCodes[edge] = 0;
+            }
+            return;
+        }
+
+        int code = codes.get(label);
+
+        if (code == -1) {
+
+            if (labels.size() == MAX_LABEL_COUNT) {
+                throw new IllegalStateException("cannot store more than "+MAX_LABEL_COUNT+" distinct edge labels");
+            }
+
+            code = labels.size();
+            labels.add(label);
+            codes.put(label, code);
+        }
+
+        if (edge >= edgeCodes.length) {
+            edgeCodes = Arrays.copyOf(edgeCodes, Math.max(edgeCodes.length * 2, edge+1));
+        }
+        edgeCodes[edge] = (short) (code+1);
+    }
+
+    /**
+     * @return the code of the given label or -1 if no edge was ever given this label
+     */
+    int getCode(String label) {
+
+        return codes.get(label);
+    }
+
+    /**
+     * @return true if the given edge has the label of the given code
+     */
+    boolean hasCode(int edge, int code) {
+
+        return edge < edgeCodes.length && edgeCodes[edge] == code+1;
+    }
+
+    /**
+     * @return the edges in [0, edgeCount) having the given label in increasing order
+     */
+    int[] getEdges(String label, int edgeCount) {
+
+        int code = codes.get(label);
+
+        if (code == -1) {
+            return new int[0];
+        }
+
+        TIntArrayList edges = new TIntArrayList();
+        int end = Math.min(edgeCount, edgeCodes.length);
+
+        for (int edge=0 ; edge<end ; edge++) {
+
+            if (edgeCodes[edge] == code+1) {
+                edges.add(edge);
+            }
+        }
+        return edges.toArray();
+    }
+
+    /**
+     * Write the labels of the first edges
+     */
+    void write(ObjectOutput out, int edgeCount) throws IOException {
+
+        out.writeInt(labels.size());
+        for (String label : labels) {
+            out.writeObject(label);
+        }
+
+        for (int edge=0 ; edge<edgeCount ; edge++) {
+            out.writeShort((edge < edgeCodes.length) ? edgeCodes[edge] : 0);
+        }
+    }
+
+    /**
+     * Read the labels of the given number of edges written by {@link #write(ObjectOutput, int)}
+     */
+    static EdgeLabelStore read(ObjectInput in, int edgeCount) throws IOException, ClassNotFoundException {
+
+        EdgeLabelStore store = new EdgeLabelStore();
+
+        int labelCount = in.readInt();
+        for (int code=0 ; code<labelCount ; code++) {
+
+            String label = (String) in.readObject();
+
+            store.labels.add(label);
+            store.codes.put(label, code);
+        }
+
+        store.edgeCodes = new short[Math.max(16, edgeCount)];
+        for (int edge=0 ; edge<edgeCount ; edge++) {
+            store.edgeCodes[edge] = in.readShort();
+        }
+        return store;
+    }
+}
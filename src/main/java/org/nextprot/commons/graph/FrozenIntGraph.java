@@ -0,0 +1,814 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable directed graph stored in compressed sparse row (CSR) form.
+ *
+ * Each node is given a slot in [0, countNodes()) following the insertion order of the source graph.
+ * Successors (resp. predecessors) of the node in slot s are stored contiguously in
+ * outTargets[outOffsets[s]..outOffsets[s+1]) (resp. inSources[inOffsets[s]..inOffsets[s+1])) with the
+ * corresponding edge ids stored at the same positions in outEdges (resp. inEdges).
+ *
+ * Instances are created with {@link IntGraph#freeze()}. All mutating operations throw
+ * UnsupportedOperationException.
+ */
+public final class FrozenIntGraph implements DirectedGraph {
+
+    private final String graphLabel;
+    private final int[] nodes;
+    private final TIntIntMap slotsByNode;
+    private final int[] tails;
+    private final int[] heads;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inEdges;
+    private final EdgeLabelStore edgeLabels;
+    private final NodeMetadataStore metadata;
+
+    FrozenIntGraph(IntGraph graph) {
+
+        this.graphLabel = graph.getGraphLabel();
+        this.nodes = graph.getNodes();
+        this.slotsByNode = new TIntIntHashMap(nodes.length, 0.5f, -1, -1);
+
+        for (int slot=0 ; slot<nodes.length ; slot++) {
+            slotsByNode.put(nodes[slot], slot);
+        }
+
+        int edgeCount = graph.countEdges();
+
+        this.tails = new int[edgeCount];
+        this.heads = new int[edgeCount];
+
+        int[] tailSlots = new int[edgeCount];
+        int[] headSlots = new int[edgeCount];
+
+        for (int edge=0 ; edge<edgeCount ; edge++) {
+
+            tails[edge] = graph.getTailNode(edge);
+            heads[edge] = graph.getHeadNode(edge);
+            tailSlots[edge] = slotsByNode.get(tails[edge]);
+            headSlots[edge] = slotsByNode.get(heads[edge]);
+        }
+
+        this.outOffsets = new int[nodes.length+1];
+        this.outTargets = new int[edgeCount];
+        this.outEdges = new int[edgeCount];
+        fillRows(tailSlots, headSlots, outOffsets, outTargets, outEdges);
+
+        this.inOffsets = new int[nodes.length+1];
+        this.inSources = new int[edgeCount];
+        this.inEdges = new int[edgeCount];
+        fillRows(headSlots, tailSlots, inOffsets, inSources, inEdges);
+
+        this.edgeLabels = new EdgeLabelStore(graph.getEdgeLabelStore(), edgeCount);
+
+        // the frozen slots are the slots of the source graph
+        this.metadata = new NodeMetadataStore(graph.getMetadataStore(), nodes.length);
+    }
+
+    /**
+     * @return the given graph if already frozen else a frozen copy of it (with its node metadata and edge labels)
+     */
+    static FrozenIntGraph of(DirectedGraph graph) {
+
+        if (graph instanceof FrozenIntGraph) {
+            return (FrozenIntGraph) graph;
+        }
+        else if (graph instanceof IntGraph) {
+            return ((IntGraph) graph).freeze();
+        }
+
+        IntGraph copy = new IntGraph(graph.getGraphLabel());
+
+        for (int node : graph.getNodes()) {
+            copy.addNode(node);
+        }
+        for (int edge : graph.getEdges()) {
+            copy.setEdgeLabel(copy.addEdge(graph.getTailNode(edge), graph.getHeadNode(edge)), graph.getEdgeLabel(edge));
+        }
+        for (String key : metadataKeysOf(graph)) {
+
+            for (int node : graph.getNodes()) {
+
+                String value = graph.getNodeMetadataValue(node, key);
+
+                if (value != null) {
+                    copy.addNodeMetadata(node, key, value);
+                }
+            }
+        }
+
+        return copy.freeze();
+    }
+
+    /**
+     * @return the node metadata keys of the given graph (none if the graph does not expose them)
+     */
+    static String[] metadataKeysOf(DirectedGraph graph) {
+
+        if (graph instanceof IntGraph) {
+            return ((IntGraph) graph).getMetadataStore().getKeys();
+        }
+        else if (graph instanceof FrozenIntGraph) {
+            return ((FrozenIntGraph) graph).getMetadataKeys();
+        }
+        else if (graph instanceof MappedIntGraph) {
+            return ((MappedIntGraph) graph).getMetadataKeys();
+        }
+        else if (graph instanceof SubgraphView) {
+            return metadataKeysOf(((SubgraphView) graph).getParentGraph());
+        }
+        else if (graph instanceof CachedGraph) {
+            return metadataKeysOf(((CachedGraph) graph).getGraph());
+        }
+        return new String[0];
+    }
+
+    /**
+     * Counting sort of edges by row: edges keep their id order inside a row
+     */
+    private static void fillRows(int[] rowSlots, int[] colSlots, int[] offsets, int[] targets, int[] edges) {
+
+        for (int rowSlot : rowSlots) {
+            offsets[rowSlot+1]++;
+        }
+
+        for (int i=1 ; i<offsets.length ; i++) {
+            offsets[i] += offsets[i-1];
+        }
+
+        int[] cursors = new int[offsets.length-1];
+        System.arraycopy(offsets, 0, cursors, 0, cursors.length);
+
+        for (int edge=0 ; edge<rowSlots.length ; edge++) {
+
+            int pos = cursors[rowSlots[edge]]++;
+
+            targets[pos] = colSlots[edge];
+            edges[pos] = edge;
+        }
+    }
+
+    @Override
+    public void setGraphLabel(String label) {
+
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    @Override
+    public String getGraphLabel() {
+
+        return graphLabel;
+    }
+
+    @Override
+    public void addNode(int node) {
+
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    @Override
+    public void addNodeMetadata(int node, String key, String value) {
+
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    @Override
+    public String getNodeMetadataValue(int node, String key) {
+
+        int slot = slotsByNode.get(node);
+
+        return (slot != -1) ? metadata.get(slot, key) : null;
+    }
+
+    /**
+     * @return the metadata keys in insertion order
+     */
+    String[] getMetadataKeys() {
+
+        return metadata.getKeys();
+    }
+
+    @Override
+    public int getNodeFromMetadata(String value) {
+
+        int slot = metadata.getSlot(value);
+
+        return (slot != -1) ? nodes[slot] : -1;
+    }
+
+    @Override
+    public int getNodeFromMetadata(String key, String value) {
+
+        int slot = metadata.getSlot(key, value);
+
+        return (slot != -1) ? nodes[slot] : -1;
+    }
+
+    @Override
+    public int addEdge(int tail, int head) {
+
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    @Override
+    public void setEdgeLabel(int edge, String label) {
+
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+
+    @Override
+    public String getEdgeLabel(int edge) {
+
+        return containsEdge(edge) ? edgeLabels.get(edge) : null;
+    }
+
+    @Override
+    public int[] getNodes() {
+
+        return nodes.clone();
+    }
+
+    @Override
+    public int[] getEdges() {
+
+        return IntStream.range(0, tails.length).toArray();
+    }
+
+    @Override
+    public int getEdge(int tail, int head) {
+
+        int tailSlot = slotsByNode.get(tail);
+        int headSlot = slotsByNode.get(head);
+
+        if (tailSlot == -1 || headSlot == -1) {
+            return -1;
+        }
+
+        for (int i=outOffsets[tailSlot] ; i<outOffsets[tailSlot+1] ; i++) {
+
+            if (outTargets[i] == headSlot) {
+                return outEdges[i];
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int[] getEdgesIncidentTo(int... nodes) {
+
+        TIntSet edges = new TIntHashSet();
+
+        edges.addAll(getInEdges(nodes));
+        edges.addAll(getOutEdges(nodes));
+
+        return edges.toArray();
+    }
+
+    @Override
+    public int[] getInEdges(int... nodes) {
+
+        return collectRowEdges(nodes, inOffsets, inEdges);
+    }
+
+    @Override
+    public int[] getOutEdges(int... nodes) {
+
+        return collectRowEdges(nodes, outOffsets, outEdges);
+    }
+
+    private int[] collectRowEdges(int[] nodes, int[] offsets, int[] rowEdges) {
+
+        TIntSet edges = new TIntHashSet();
+
+        for (int node : nodes) {
+
+            int slot = slotsByNode.get(node);
+
+            if (slot == -1) {
+                continue;
+            }
+
+            for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+                edges.add(rowEdges[i]);
+            }
+        }
+
+        return edges.toArray();
+    }
+
+    @Override
+    public int getTailNode(int edge) {
+
+        return containsEdge(edge) ? tails[edge] : -1;
+    }
+
+    @Override
+    public int getHeadNode(int edge) {
+
+        return containsEdge(edge) ? heads[edge] : -1;
+    }
+
+    @Override
+    public boolean containsNode(int node) {
+
+        return slotsByNode.containsKey(node);
+    }
+
+    @Override
+    public boolean containsEdge(int edge) {
+
+        return edge >= 0 && edge < tails.length;
+    }
+
+    @Override
+    public boolean containsEdge(int tail, int head) {
+
+        return getEdge(tail, head) != -1;
+    }
+
+    @Override
+    public int[] getAncestors(int node) {
+
+        return collectReachableNodes(node, inOffsets, inSources, 0);
+    }
+
+    @Override
+    public int[] getDescendants(int node) {
+
+        return getDescendants(node, 0);
+    }
+
+    @Override
+    public int[] getDescendants(int node, int maxDepth) {
+
+        return collectReachableNodes(node, outOffsets, outTargets, maxDepth);
+    }
+
+    /**
+     * Breadth-first walk of the given CSR rows from node
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @return the nodes reachable from node
+     */
+    private int[] collectReachableNodes(int node, int[] offsets, int[] targets, int maxDepth) {
+
+        int source = slotsByNode.get(node);
+
+        if (source == -1) {
+            return new int[0];
+        }
+
+        BitSet visited = new BitSet(nodes.length);
+        TIntArrayList queue = new TIntArrayList();
+
+        queue.add(source);
+
+        int levelEnd = queue.size();
+        int depth = 0;
+
+        for (int head=0 ; head<queue.size() ; head++) {
+
+            if (head == levelEnd) {
+                depth++;
+                levelEnd = queue.size();
+            }
+
+            if (maxDepth > 0 && depth >= maxDepth) {
+                break;
+            }
+
+            int slot = queue.getQuick(head);
+
+            for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+
+                int target = targets[i];
+
+                if (!visited.get(target)) {
+                    visited.set(target);
+                    queue.add(target);
+                }
+            }
+        }
+
+        // the source is only part of the result when it lies on a cycle
+        int[] reachable = new int[visited.cardinality()];
+        int i = 0;
+
+        for (int slot = visited.nextSetBit(0) ; slot >= 0 ; slot = visited.nextSetBit(slot+1)) {
+            reachable[i++] = nodes[slot];
+        }
+
+        return reachable;
+    }
+
+    @Override
+    public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
+
+        int ancestor = slotsByNode.get(queryAncestor);
+        int descendant = slotsByNode.get(queryDescendant);
+
+        if (ancestor == -1 || descendant == -1) {
+            return false;
+        }
+
+        BitSet visited = new BitSet(nodes.length);
+        TIntArrayList queue = new TIntArrayList();
+
+        queue.add(descendant);
+
+        for (int head=0 ; head<queue.size() ; head++) {
+
+            int slot = queue.getQuick(head);
+
+            for (int i=inOffsets[slot] ; i<inOffsets[slot+1] ; i++) {
+
+                int predecessor = inSources[i];
+
+                if (predecessor == ancestor) {
+                    return true;
+                }
+
+                if (!visited.get(predecessor)) {
+                    visited.set(predecessor);
+                    queue.add(predecessor);
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int[] getPredecessors(int node) {
+
+        return rowNodes(node, inOffsets, inSources);
+    }
+
+    @Override
+    public int[] getSuccessors(int node) {
+
+        return rowNodes(node, outOffsets, outTargets);
+    }
+
+    private int[] rowNodes(int node, int[] offsets, int[] targets) {
+
+        int slot = slotsByNode.get(node);
+
+        if (slot == -1) {
+            return new int[0];
+        }
+
+        int[] row = new int[offsets[slot+1]-offsets[slot]];
+
+        for (int i=0 ; i<row.length ; i++) {
+            row[i] = nodes[targets[offsets[slot]+i]];
+        }
+
+        return row;
+    }
+
+    @Override
+    public boolean forEachNode(IntPredicate visitor) {
+
+        return GraphTraversal.visitAll(nodes, visitor);
+    }
+
+    @Override
+    public boolean forEachSuccessor(int node, IntPredicate visitor) {
+
+        return visitRow(node, outOffsets, outTargets, visitor);
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, IntPredicate visitor) {
+
+        return visitRow(node, inOffsets, inSources, visitor);
+    }
+
+    @Override
+    public int[] getEdgesWithLabel(String label) {
+
+        return edgeLabels.getEdges(label, tails.length);
+    }
+
+    @Override
+    public boolean forEachSuccessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        return visitRow(node, outOffsets, outTargets, outEdges, edgeLabels.getCode(edgeLabel), visitor);
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        return visitRow(node, inOffsets, inSources, inEdges, edgeLabels.getCode(edgeLabel), visitor);
+    }
+
+    /**
+     * Visit the neighbours linked by edges having the label of the given code
+     */
+    private boolean visitRow(int node, int[] offsets, int[] targets, int[] edges, int labelCode, IntPredicate visitor) {
+
+        int slot = slotsByNode.get(node);
+
+        if (slot == -1 || labelCode == -1) {
+            return true;
+        }
+
+        for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+
+            if (edgeLabels.hasCode(edges[i], labelCode) && !visitor.test(nodes[targets[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean visitRow(int node, int[] offsets, int[] targets, IntPredicate visitor) {
+
+        int slot = slotsByNode.get(node);
+
+        if (slot == -1) {
+            return true;
+        }
+
+        for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+
+            if (!visitor.test(nodes[targets[i]])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getInDegree(int node) {
+
+        int slot = slotsByNode.get(node);
+
+        return (slot == -1) ? 0 : inOffsets[slot+1]-inOffsets[slot];
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+
+        int slot = slotsByNode.get(node);
+
+        return (slot == -1) ? 0 : outOffsets[slot+1]-outOffsets[slot];
+    }
+
+    @Override
+    public int[] getSources() {
+
+        TIntArrayList sources = new TIntArrayList();
+
+        for (int slot=0 ; slot<nodes.length ; slot++) {
+
+            if (inOffsets[slot+1] == inOffsets[slot] && outOffsets[slot+1] > outOffsets[slot]) {
+                sources.add(nodes[slot]);
+            }
+        }
+
+        return sources.toArray();
+    }
+
+    @Override
+    public int[] getSinks() {
+
+        TIntArrayList sinks = new TIntArrayList();
+
+        for (int slot=0 ; slot<nodes.length ; slot++) {
+
+            if (inOffsets[slot+1] > inOffsets[slot] && outOffsets[slot+1] == outOffsets[slot]) {
+                sinks.add(nodes[slot]);
+            }
+        }
+
+        return sinks.toArray();
+    }
+
+    /**
+     * Extract the subgraph induced by the given nodes in O(k + sum of their out-degrees) (duplicates are ignored,
+     * unknown nodes are added without edges)
+     */
+    @Override
+    public IntGraph calcSubgraph(int... nodes) {
+
+        return IntGraph.calcSubgraph(this, this.nodes.length, this::slotOf,
+                slot -> Arrays.copyOfRange(outEdges, outOffsets[slot], outOffsets[slot+1]), metadata.getKeys(), nodes);
+    }
+
+    /**
+     * Extract in a single traversal the subgraph made of the given seeds and all their ancestors (the edges are the
+     * in-edges met while walking up from the seeds)
+     */
+    @Override
+    public IntGraph calcAncestorSubgraph(int... seeds) {
+
+        return calcClosureSubgraph(seeds, inOffsets, inSources, inEdges);
+    }
+
+    /**
+     * Extract in a single traversal the subgraph made of the given seeds and all their descendants (the edges are
+     * the out-edges met while walking down from the seeds)
+     */
+    @Override
+    public IntGraph calcDescendantSubgraph(int... seeds) {
+
+        return calcClosureSubgraph(seeds, outOffsets, outTargets, outEdges);
+    }
+
+    private IntGraph calcClosureSubgraph(int[] seeds, int[] offsets, int[] neighbourSlots, int[] neighbourEdges) {
+
+        BitSet visited = new BitSet(nodes.length);
+        // the subgraph slots in visiting order, also used as the breadth-first queue
+        TIntArrayList sgSlots = new TIntArrayList(seeds.length);
+        TIntArrayList sgEdgeSources = new TIntArrayList();
+
+        for (int seed : seeds) {
+
+            int slot = slotsByNode.get(seed);
+
+            if (slot != -1 && !visited.get(slot)) {
+                visited.set(slot);
+                sgSlots.add(slot);
+            }
+        }
+
+        for (int i=0 ; i<sgSlots.size() ; i++) {
+
+            int slot = sgSlots.getQuick(i);
+
+            for (int j=offsets[slot] ; j<offsets[slot+1] ; j++) {
+
+                int next = neighbourSlots[j];
+
+                sgEdgeSources.add(neighbourEdges[j]);
+
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    sgSlots.add(next);
+                }
+            }
+        }
+
+        TIntArrayList sgNodes = new TIntArrayList(sgSlots.size());
+
+        sgSlots.forEach(slot -> sgNodes.add(nodes[slot]));
+
+        return IntGraph.newSubgraph(this, metadata.getKeys(), sgNodes, sgEdgeSources);
+    }
+
+    /**
+     * @return the slot of the given node or -1 if not found
+     */
+    int slotOf(int node) {
+
+        return slotsByNode.get(node);
+    }
+
+    /**
+     * @return the node stored at the given slot
+     */
+    int nodeAt(int slot) {
+
+        return nodes[slot];
+    }
+
+    // the following CSR arrays are shared with package algorithms and must not be modified
+
+    int[] outOffsets() {
+
+        return outOffsets;
+    }
+
+    int[] outTargets() {
+
+        return outTargets;
+    }
+
+    int[] outEdges() {
+
+        return outEdges;
+    }
+
+    int[] inOffsets() {
+
+        return inOffsets;
+    }
+
+    int[] inSources() {
+
+        return inSources;
+    }
+
+    int[] inEdges() {
+
+        return inEdges;
+    }
+
+    /**
+     * Sort the node slots in topological order (Kahn's algorithm)
+     * @return slots ordered so that each edge tail comes before its head
+     * @throws CycleDetectedException if the graph is not acyclic
+     */
+    int[] calcTopologicalSlotOrder() throws CycleDetectedException {
+
+        int[] inDegrees = new int[nodes.length];
+        int[] order = new int[nodes.length];
+        int size = 0;
+
+        for (int slot=0 ; slot<nodes.length ; slot++) {
+
+            inDegrees[slot] = inOffsets[slot+1]-inOffsets[slot];
+
+            if (inDegrees[slot] == 0) {
+                order[size++] = slot;
+            }
+        }
+
+        for (int head=0 ; head<size ; head++) {
+
+            int slot = order[head];
+
+            for (int i=outOffsets[slot] ; i<outOffsets[slot+1] ; i++) {
+
+                if (--inDegrees[outTargets[i]] == 0) {
+                    order[size++] = outTargets[i];
+                }
+            }
+        }
+
+        if (size < nodes.length) {
+            throw new CycleDetectedException(findCycle(inDegrees));
+        }
+
+        return order;
+    }
+
+    /**
+     * Walk backward from a node left unsorted by Kahn's algorithm until a node repeats
+     * @param inDegrees the remaining in-degrees (nodes on or below a cycle have non-zero values)
+     * @return the path of nodes closing a cycle
+     */
+    private TIntList findCycle(int[] inDegrees) {
+
+        int slot = 0;
+        while (inDegrees[slot] == 0) {
+            slot++;
+        }
+
+        // every unsorted node has at least one unsorted predecessor
+        TIntIntMap positions = new TIntIntHashMap(16, 0.5f, -1, -1);
+        TIntList path = new TIntArrayList();
+
+        while (!positions.containsKey(slot)) {
+
+            positions.put(slot, path.size());
+            path.add(slot);
+
+            for (int i=inOffsets[slot] ; i<inOffsets[slot+1] ; i++) {
+
+                if (inDegrees[inSources[i]] > 0) {
+                    slot = inSources[i];
+                    break;
+                }
+            }
+        }
+
+        TIntList cycle = new TIntArrayList();
+
+        // path was built backward: report it in edge direction
+        cycle.add(nodes[slot]);
+        for (int i=path.size()-1 ; i>=positions.get(slot) ; i--) {
+            cycle.add(nodes[path.get(i)]);
+        }
+
+        return cycle;
+    }
+
+    @Override
+    public int countNodes() {
+
+        return nodes.length;
+    }
+
+    @Override
+    public int countEdges() {
+
+        return tails.length;
+    }
+}
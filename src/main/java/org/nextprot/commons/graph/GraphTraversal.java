@@ -0,0 +1,361 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.BitSet;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Iterative breadth-first traversals of a DirectedGraph.
+ *
+ * Each node is expanded at most once per traversal, so shared sub-DAGs are not walked again and deep graphs cannot
+ * overflow the stack. The visited bitset, the work queue and the level ends are kept per thread between traversals
+ * and shared by all the graphs queried on the thread: queries do not allocate them again (only the bits of the
+ * visited nodes are cleared) and, as this state never references a graph, it does not keep queried graphs alive. The
+ * bitset is indexed by node slot for IntGraph, FrozenIntGraph and MappedIntGraph (so its size does not depend on the
+ * node id range) and by node id otherwise. Neighbours are read through the DirectedGraph visitor methods, which do
+ * not allocate for IntGraph and FrozenIntGraph.
+ *
+ * Instances hold no traversal state and can be shared between threads if the graph is not modified meanwhile.
+ */
+public final class GraphTraversal {
+
+    // the reusable state of the traversals of each thread
+    private static final ThreadLocal<State> STATES = ThreadLocal.withInitial(State::new);
+
+    private final DirectedGraph graph;
+    private final IntUnaryOperator bitIndexer;
+    // the label of the edges to follow or null to follow all edges
+    private final String edgeLabel;
+
+    public GraphTraversal(DirectedGraph graph) {
+
+        this(graph, null);
+    }
+
+    /**
+     * Create a traversal following only the edges with the given label
+     * @param edgeLabel the label of the edges to follow or null to follow all edges
+     */
+    public GraphTraversal(DirectedGraph graph, String edgeLabel) {
+
+        this.graph = graph;
+        this.bitIndexer = bitIndexerOf(graph);
+        this.edgeLabel = edgeLabel;
+    }
+
+    /**
+     * @return a function giving a distinct small index to each node of the given graph (its slot when available)
+     */
+    static IntUnaryOperator bitIndexerOf(DirectedGraph graph) {
+
+        if (graph instanceof IntGraph) {
+            return ((IntGraph) graph)::slotOf;
+        }
+        else if (graph instanceof FrozenIntGraph) {
+            return ((FrozenIntGraph) graph)::slotOf;
+        }
+        else if (graph instanceof MappedIntGraph) {
+            return ((MappedIntGraph) graph)::slotOf;
+        }
+        else if (graph instanceof SubgraphView) {
+            return bitIndexerOf(((SubgraphView) graph).getParentGraph());
+        }
+        else if (graph instanceof CachedGraph) {
+            return bitIndexerOf(((CachedGraph) graph).getGraph());
+        }
+        return IntUnaryOperator.identity();
+    }
+
+    /**
+     * @return the number of slots indexing the nodes with {@link #bitIndexerOf(DirectedGraph)} or -1 if the nodes are
+     * indexed by id
+     */
+    static int countBitIndices(DirectedGraph graph) {
+
+        if (graph instanceof IntGraph || graph instanceof FrozenIntGraph || graph instanceof MappedIntGraph) {
+            return graph.countNodes();
+        }
+        else if (graph instanceof SubgraphView) {
+            return countBitIndices(((SubgraphView) graph).getParentGraph());
+        }
+        else if (graph instanceof CachedGraph) {
+            return countBitIndices(((CachedGraph) graph).getGraph());
+        }
+        return -1;
+    }
+
+    /**
+     * @return a function giving the position of each node in the given array of the graph nodes
+     */
+    static IntUnaryOperator positionIndexerOf(DirectedGraph graph, int[] nodes) {
+
+        // the nodes of these graphs are listed in slot order
+        if (graph instanceof IntGraph || graph instanceof FrozenIntGraph) {
+            return GraphTraversal.bitIndexerOf(graph);
+        }
+
+        TIntIntMap indices = new TIntIntHashMap(nodes.length, 0.5f, -1, -1);
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            indices.put(nodes[i], i);
+        }
+        return indices::get;
+    }
+
+    /**
+     * @return the ancestors of the given node
+     */
+    public int[] getAncestors(int node) {
+
+        return traverse(node, true, 0, null, State::getNodes);
+    }
+
+    /**
+     * @return the descendants of the given node
+     */
+    public int[] getDescendants(int node) {
+
+        return getDescendants(node, 0);
+    }
+
+    /**
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @return the descendants of the given node
+     */
+    public int[] getDescendants(int node, int maxDepth) {
+
+        return traverse(node, false, maxDepth, null, State::getNodes);
+    }
+
+    /**
+     * Collect in a single traversal the ancestors of the given node grouped by shortest distance
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @return the ancestors at distance d at index d-1
+     */
+    public int[][] getAncestorsByDistance(int node, int maxDepth) {
+
+        return traverse(node, true, maxDepth, null, State::getLevels);
+    }
+
+    /**
+     * Collect in a single traversal the descendants of the given node grouped by shortest distance
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @return the descendants at distance d at index d-1
+     */
+    public int[][] getDescendantsByDistance(int node, int maxDepth) {
+
+        return traverse(node, false, maxDepth, null, State::getLevels);
+    }
+
+    /**
+     * Search the ancestors of queryDescendant and stop as soon as queryAncestor is found
+     * @return true if queryDescendant is a descendant of queryAncestor
+     */
+    public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
+
+        return !visitAncestors(queryDescendant, ancestor -> ancestor != queryAncestor);
+    }
+
+    /**
+     * Visit each ancestor of the given node once, nearest first
+     * @param visitor called on each ancestor, returns false to stop the traversal
+     * @return false if the traversal was stopped by the visitor else true
+     */
+    public boolean visitAncestors(int node, IntPredicate visitor) {
+
+        return traverse(node, true, 0, visitor, State::isCompleted);
+    }
+
+    /**
+     * Visit each descendant of the given node once, nearest first
+     * @param maxDepth the maximum distance from node (0 means no limit)
+     * @param visitor called on each descendant, returns false to stop the traversal
+     * @return false if the traversal was stopped by the visitor else true
+     */
+    public boolean visitDescendants(int node, int maxDepth, IntPredicate visitor) {
+
+        return traverse(node, false, maxDepth, visitor, State::isCompleted);
+    }
+
+    /**
+     * Collect in the queue all the nodes reachable from source (itself excluded unless on a cycle)
+     * @param upward true to follow edges backward (ancestors), false to follow them forward (descendants)
+     * @param maxDepth the maximum distance from source (0 means no limit)
+     * @param visitor an optional visitor called on each newly reached node
+     * @param result extracts the result from the traversal state before it is cleared
+     * @return the result
+     */
+    private <T> T traverse(int source, boolean upward, int maxDepth, IntPredicate visitor, Function<State, T> result) {
+
+        State threadState = STATES.get();
+        // a traversal started by a visitor gets its own state
+        State state = threadState.busy ? new State() : threadState;
+
+        state.busy = true;
+        state.visitor = visitor;
+
+        IntPredicate enqueue = node -> state.enqueue(node, bitIndexer.applyAsInt(node));
+
+        try {
+            expand(source, upward, enqueue);
+            state.levelEnds.add(state.queue.size());
+
+            // the distance of the node at head
+            int depth = 1;
+
+            for (int head=0 ; head<state.queue.size() && !state.stopped ; head++) {
+
+                if (head == state.levelEnds.getQuick(depth-1)) {
+                    state.levelEnds.add(state.queue.size());
+                    depth++;
+                }
+
+                if (maxDepth > 0 && depth >= maxDepth) {
+                    break;
+                }
+
+                expand(state.queue.getQuick(head), upward, enqueue);
+            }
+            return result.apply(state);
+        } finally {
+            state.clear(bitIndexer);
+        }
+    }
+
+    private void expand(int node, boolean upward, IntPredicate enqueue) {
+
+        if (edgeLabel != null) {
+
+            if (upward) {
+                graph.forEachPredecessor(node, edgeLabel, enqueue);
+            }
+            else {
+                graph.forEachSuccessor(node, edgeLabel, enqueue);
+            }
+        }
+        else if (upward) {
+            graph.forEachPredecessor(node, enqueue);
+        }
+        else {
+            graph.forEachSuccessor(node, enqueue);
+        }
+    }
+
+    /**
+     * The buffers of a running traversal. They never reference a graph once the traversal is over.
+     */
+    private static final class State {
+
+        private final BitSet visited = new BitSet();
+        private final TIntArrayList queue = new TIntArrayList();
+        // the end of each distance level in the queue, the nodes at distance d are queue[levelEnds[d-2]..levelEnds[d-1])
+        private final TIntArrayList levelEnds = new TIntArrayList();
+        private IntPredicate visitor;
+        private boolean stopped;
+        private boolean busy;
+
+        private boolean enqueue(int node, int bit) {
+
+            if (stopped) {
+                return false;
+            }
+
+            if (!visited.get(bit)) {
+
+                visited.set(bit);
+                queue.add(node);
+
+                if (visitor != null && !visitor.test(node)) {
+                    stopped = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int[] getNodes() {
+
+            return queue.toArray();
+        }
+
+        private int[][] getLevels() {
+
+            if (queue.isEmpty()) {
+                return new int[0][];
+            }
+
+            int[][] levels = new int[levelEnds.size()][];
+
+            for (int level=0, start=0 ; level<levels.length ; level++) {
+
+                levels[level] = queue.toArray(start, levelEnds.getQuick(level) - start);
+                start = levelEnds.getQuick(level);
+            }
+            return levels;
+        }
+
+        private boolean isCompleted() {
+
+            return !stopped;
+        }
+
+        private void clear(IntUnaryOperator bitIndexer) {
+
+            for (int i=0 ; i<queue.size() ; i++) {
+                visited.clear(bitIndexer.applyAsInt(queue.getQuick(i)));
+            }
+            queue.resetQuick();
+            levelEnds.resetQuick();
+            visitor = null;
+            stopped = false;
+            busy = false;
+        }
+    }
+
+    /**
+     * @return the distinct given seeds found in the graph followed by the given nodes that are not seeds
+     */
+    static int[] withNodesOf(DirectedGraph graph, int[] seeds, int[] nodes) {
+
+        TIntSet distinct = new TIntHashSet(seeds.length + nodes.length);
+        TIntArrayList union = new TIntArrayList(seeds.length + nodes.length);
+
+        for (int seed : seeds) {
+
+            if (graph.containsNode(seed) && distinct.add(seed)) {
+                union.add(seed);
+            }
+        }
+
+        for (int node : nodes) {
+
+            if (distinct.add(node)) {
+                union.add(node);
+            }
+        }
+
+        return union.toArray();
+    }
+
+    /**
+     * Visit the given nodes in order
+     * @return false if the iteration was stopped by the visitor else true
+     */
+    static boolean visitAll(int[] nodes, IntPredicate visitor) {
+
+        for (int node : nodes) {
+
+            if (!visitor.test(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
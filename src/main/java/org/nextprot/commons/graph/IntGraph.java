@@ -3,37 +3,68 @@ package org.nextprot.commons.graph;
 import com.google.common.base.Preconditions;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.TIntObjectMap;
-import gnu.trove.map.TObjectIntMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
 import java.io.Externalizable;
 import java.io.IOException;
+import java.io.InvalidClassException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
 import java.util.stream.IntStream;
 
 /**
  * A directed graph of int nodes and edges
  *
+ * Nodes are mapped to dense slots 0..N-1 in insertion order: the incident edges and degrees of a node are stored in
+ * plain arrays indexed by its slot, its metadata in the slot-indexed columns of a {@link NodeMetadataStore}.
+ *
  * Created by fnikitin on 23.06.17.
  */
 public class IntGraph implements DirectedGraph, Externalizable {
 
+    private static final int[] NO_EDGES = new int[0];
+    private static final int INITIAL_SLOT_CAPACITY = 16;
+    // written first by writeExternal, incremented on each change of the serialized layout
+    static final int SERIAL_FORMAT_VERSION = 2;
+
     private String graphLabel;
+    // the node of each slot
     private TIntList nodes = new TIntArrayList();
     private TIntList tails = new TIntArrayList();
     private TIntList heads = new TIntArrayList();
-    private TIntObjectMap<TIntSet> predecessorLists = new TIntObjectHashMap<>();
-    private TIntObjectMap<TIntSet> successorLists = new TIntObjectHashMap<>();
-    private TIntObjectMap<Map<String, String>> nodeMetadata = new TIntObjectHashMap<>();
-    private TObjectIntMap<String> nodesByMetadataValue = new TObjectIntHashMap<>();
-    private TIntObjectMap<String> edgeLabels = new TIntObjectHashMap<>();
+    private EdgeLabelStore edgeLabels = new EdgeLabelStore();
+    // the slot of each node (not serialized, rebuilt from nodes)
+    private TIntIntMap slotsByNode = new TIntIntHashMap(INITIAL_SLOT_CAPACITY, 0.5f, -1, -1);
+    // incoming and outgoing edge ids per slot, only the first degree entries of a row are used (not serialized,
+    // rebuilt from tails and heads)
+    private int[][] inEdgeRows = new int[INITIAL_SLOT_CAPACITY][];
+    private int[][] outEdgeRows = new int[INITIAL_SLOT_CAPACITY][];
+    private int[] inDegrees = new int[INITIAL_SLOT_CAPACITY];
+    private int[] outDegrees = new int[INITIAL_SLOT_CAPACITY];
+    private NodeMetadataStore metadata = new NodeMetadataStore();
+    // edge ids indexed by packed (tail, head) end points (not serialized, built on first use from tails and heads)
+    private volatile TLongIntMap edgesByEndPoints = new TLongIntHashMap(10, 0.5f, -1L, -1);
+    // optional reachability indices built lazily and dropped on mutation (never built on cyclic graphs)
+    private TransitiveClosure.Representation closureRepresentation;
+    private volatile TransitiveClosure transitiveClosure;
+    private boolean reachabilityLabelsEnabled;
+    private volatile ReachabilityLabels reachabilityLabels;
+    private volatile boolean cycleDetected;
+    private volatile TopologicalOrder topologicalOrder;
+    // incremented by each node or edge addition (not serialized)
+    private volatile long modificationCount;
+    // ancestor/descendant queries (the traversal buffers are kept per thread by GraphTraversal)
+    private final GraphTraversal traversal = new GraphTraversal(this);
 
     public IntGraph() {
 
@@ -45,6 +76,23 @@ public class IntGraph implements DirectedGraph, Externalizable {
         setGraphLabel(label);
     }
 
+    /**
+     * Create a graph from valid nodes and edges in a single pass (used by {@link IntGraphBuilder})
+     * @param nodes distinct non-negative nodes in slot order
+     * @param tails the tail node of each edge
+     * @param heads the head node of each edge
+     */
+    IntGraph(String label, TIntArrayList nodes, TIntArrayList tails, TIntArrayList heads) {
+
+        setGraphLabel(label);
+
+        this.nodes = nodes;
+        this.tails = tails;
+        this.heads = heads;
+
+        rebuildIndices();
+    }
+
     @Override
     public void setGraphLabel(String label) {
 
@@ -61,60 +109,98 @@ public class IntGraph implements DirectedGraph, Externalizable {
     @Override
     public void addNodeMetadata(int node, String key, String value) {
 
-        if (!containsNode(node)) {
-            throw new IllegalArgumentException("node " + node+" does not exist");
-        }
+        int slot = slotsByNode.get(node);
 
-        if (!nodeMetadata.containsKey(node)) {
-            nodeMetadata.put(node, new HashMap<>());
+        if (slot == -1) {
+            throw new IllegalArgumentException("node " + node+" does not exist");
         }
 
-        if (nodeMetadata.get(node).containsKey(key)) {
+        if (metadata.get(slot, key) != null) {
             throw new IllegalArgumentException("node metadata key " + key + " already exist");
         }
 
-        nodeMetadata.get(node).put(key, value);
+        int owner = metadata.getSlot(value);
 
-        if (nodesByMetadataValue.containsKey(value) && nodesByMetadataValue.get(value) != node) {
-            throw new IllegalArgumentException("node "+node+": metadata value " + value + " is already associated with node "+ nodesByMetadataValue.get(value));
+        if (owner != -1 && owner != slot) {
+            throw new IllegalArgumentException("node "+node+": metadata value " + value + " is already associated with node "+ nodes.get(owner));
         }
-        nodesByMetadataValue.put(value, node);
+        metadata.put(slot, key, value);
     }
 
     @Override
     public String getNodeMetadataValue(int node, String key) {
 
-        if (!nodeMetadata.containsKey(node)) {
-            return null;
-        }
+        int slot = slotsByNode.get(node);
 
-        if (!nodeMetadata.get(node).containsKey(key)) {
-            return null;
-        }
+        return (slot != -1) ? metadata.get(slot, key) : null;
+    }
+
+    /**
+     * @return the metadata of the nodes indexed by slot
+     */
+    NodeMetadataStore getMetadataStore() {
 
-        return nodeMetadata.get(node).get(key);
+        return metadata;
+    }
+
+    /**
+     * @return the labels of the edges indexed by edge id
+     */
+    EdgeLabelStore getEdgeLabelStore() {
+
+        return edgeLabels;
     }
 
     @Override
     public void addNode(int node) {
 
-        assert !nodes.contains(node) : node;
+        assert !containsNode(node) : node;
 
         if (node < 0) {
             throw new IllegalStateException("node cannot be negative");
         }
 
+        allocateSlot(node);
+        invalidateIndices();
+        modificationCount++;
+    }
+
+    private int allocateSlot(int node) {
+
+        int slot = nodes.size();
+
+        if (slot == inDegrees.length) {
+
+            int capacity = slot * 2;
+
+            inEdgeRows = Arrays.copyOf(inEdgeRows, capacity);
+            outEdgeRows = Arrays.copyOf(outEdgeRows, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+        }
+
         nodes.add(node);
+        slotsByNode.put(node, slot);
+        inEdgeRows[slot] = NO_EDGES;
+        outEdgeRows[slot] = NO_EDGES;
+
+        return slot;
     }
 
     @Override
     public int getNodeFromMetadata(String value) {
 
-        if (!nodesByMetadataValue.containsKey(value)) {
-            return -1;
-        }
+        int slot = metadata.getSlot(value);
 
-        return nodesByMetadataValue.get(value);
+        return (slot != -1) ? nodes.get(slot) : -1;
+    }
+
+    @Override
+    public int getNodeFromMetadata(String key, String value) {
+
+        int slot = metadata.getSlot(key, value);
+
+        return (slot != -1) ? nodes.get(slot) : -1;
     }
 
     @Override
@@ -128,64 +214,101 @@ public class IntGraph implements DirectedGraph, Externalizable {
             addNode(head);
         }
 
-        boolean created = addSuccessor(tail, head);
+        TLongIntMap edgeIndex = getEdgeIndex();
 
-        if (created) {
-            addPredecessor(tail, head);
+        if (edgeIndex.containsKey(packEndPoints(tail, head))) {
+            throw new IllegalStateException("already existing edge: "+tail+ " -> "+head);
+        }
 
-            tails.add(tail);
-            heads.add(head);
+        tails.add(tail);
+        heads.add(head);
 
-            return tails.size()-1;
-        }
+        int edge = tails.size()-1;
+        edgeIndex.put(packEndPoints(tail, head), edge);
+        indexEdge(edge, tail, head);
+        invalidateIndices();
+        modificationCount++;
 
-        throw new IllegalStateException("already existing edge: "+tail+ " -> "+head);
+        return edge;
     }
 
-    @Override
-    public void setEdgeLabel(int edge, String label) {
+    /**
+     * @return the edge ids by end points (built on first call after a bulk load)
+     */
+    private TLongIntMap getEdgeIndex() {
 
-        if (!containsEdge(edge)) {
-            throw new IllegalArgumentException("edge " + edge+" does not exist");
-        }
+        TLongIntMap edgeIndex = edgesByEndPoints;
 
-        edgeLabels.put(edge, label);
+        if (edgeIndex == null) {
+
+            synchronized (this) {
+
+                edgeIndex = edgesByEndPoints;
+
+                if (edgeIndex == null) {
+
+                    edgeIndex = new TLongIntHashMap(Math.max(10, tails.size()), 0.5f, -1L, -1);
+
+                    for (int edge=0 ; edge<tails.size() ; edge++) {
+                        edgeIndex.put(packEndPoints(tails.get(edge), heads.get(edge)), edge);
+                    }
+                    edgesByEndPoints = edgeIndex;
+                }
+            }
+        }
+        return edgeIndex;
     }
 
-    @Override
-    public String getEdgeLabel(int edge) {
+    private void indexEdge(int edge, int tail, int head) {
 
-        return edgeLabels.get(edge);
+        int tailSlot = slotsByNode.get(tail);
+        int headSlot = slotsByNode.get(head);
+
+        outEdgeRows[tailSlot] = appendEdge(outEdgeRows[tailSlot], outDegrees[tailSlot]++, edge);
+        inEdgeRows[headSlot] = appendEdge(inEdgeRows[headSlot], inDegrees[headSlot]++, edge);
     }
 
-    private boolean addSuccessor(int tail, int head) {
+    /**
+     * @return the given row or a larger copy of it with the edge stored at the given index
+     */
+    private static int[] appendEdge(int[] row, int index, int edge) {
 
-        if (!successorLists.containsKey(tail)) {
-            successorLists.put(tail, new TIntHashSet());
+        if (index == row.length) {
+            row = Arrays.copyOf(row, Math.max(2, row.length * 2));
         }
+        row[index] = edge;
 
-        if (!successorLists.get(tail).contains(head)) {
-            successorLists.get(tail).add(head);
+        return row;
+    }
 
-            return true;
-        }
+    /**
+     * @return a unique long key for the edge tail -> head
+     */
+    private static long packEndPoints(int tail, int head) {
 
-        return false;
+        return ((long) tail << 32) | (head & 0xFFFFFFFFL);
     }
 
-    private boolean addPredecessor(int tail, int head) {
+    @Override
+    public void setEdgeLabel(int edge, String label) {
 
-        if (!predecessorLists.containsKey(head)) {
-            predecessorLists.put(head, new TIntHashSet());
+        if (!containsEdge(edge)) {
+            throw new IllegalArgumentException("edge " + edge+" does not exist");
         }
 
-        if (!predecessorLists.get(head).contains(tail)) {
-            predecessorLists.get(head).add(tail);
+        edgeLabels.put(edge, label);
+    }
 
-            return true;
-        }
+    @Override
+    public String getEdgeLabel(int edge) {
 
-        return false;
+        return edgeLabels.get(edge);
+    }
+
+    @Override
+    public int[] getEdgesWithLabel(String label) {
+
+        return edgeLabels.getEdges(label, tails.size());
     }
 
     @Override
@@ -203,13 +326,7 @@ public class IntGraph implements DirectedGraph, Externalizable {
     @Override
     public int getEdge(int tail, int head) {
 
-        for (int i=0 ; i<tails.size() ; i++) {
-
-            if (tails.get(i) == tail && heads.get(i) == head) {
-                 return i;
-            }
-        }
-        return -1;
+        return getEdgeIndex().get(packEndPoints(tail, head));
     }
 
     @Override
@@ -230,7 +347,11 @@ public class IntGraph implements DirectedGraph, Externalizable {
 
         for (int node : nodes) {
 
-            findMatchingPointEdges(node, heads, edges);
+            int slot = slotsByNode.get(node);
+
+            for (int i=0 ; slot != -1 && i<inDegrees[slot] ; i++) {
+                edges.add(inEdgeRows[slot][i]);
+            }
         }
 
         return edges.toArray();
@@ -243,20 +364,14 @@ public class IntGraph implements DirectedGraph, Externalizable {
 
         for (int node : nodes) {
 
-            findMatchingPointEdges(node, tails, edges);
-        }
-
-        return edges.toArray();
-    }
+            int slot = slotsByNode.get(node);
 
-    private void findMatchingPointEdges(int node, TIntList endPoints, TIntSet edges) {
-
-        for (int i=0 ; i<endPoints.size() ; i++) {
-
-            if (endPoints.get(i) == node) {
-                edges.add(i);
+            for (int i=0 ; slot != -1 && i<outDegrees[slot] ; i++) {
+                edges.add(outEdgeRows[slot][i]);
             }
         }
+
+        return edges.toArray();
     }
 
     @Override
@@ -282,7 +397,15 @@ public class IntGraph implements DirectedGraph, Externalizable {
     @Override
     public boolean containsNode(int node) {
 
-        return nodes.contains(node);
+        return slotsByNode.containsKey(node);
+    }
+
+    /**
+     * @return the slot of the given node or -1 if not found
+     */
+    int slotOf(int node) {
+
+        return slotsByNode.get(node);
     }
 
     @Override
@@ -294,18 +417,129 @@ public class IntGraph implements DirectedGraph, Externalizable {
     @Override
     public boolean containsEdge(int tail, int head) {
 
-        return successorLists.containsKey(tail) && successorLists.get(tail).contains(head);
+        return getEdgeIndex().containsKey(packEndPoints(tail, head));
+    }
+
+    /**
+     * Enable or disable the transitive closure index used by ancestor and descendant queries.
+     *
+     * The index is built on the first query following a mutation of the graph. It is never used if the graph
+     * contains a cycle.
+     *
+     * @param representation the closure storage or null to disable the index
+     */
+    public void setTransitiveClosureRepresentation(TransitiveClosure.Representation representation) {
+
+        this.closureRepresentation = representation;
+        invalidateIndices();
+    }
+
+    /**
+     * @return the transitive closure of this graph (built if needed) or null if disabled or if the graph is cyclic
+     */
+    public TransitiveClosure getTransitiveClosure() {
+
+        if (closureRepresentation == null || cycleDetected) {
+            return null;
+        }
+
+        TransitiveClosure closure = transitiveClosure;
+
+        if (closure == null) {
+            try {
+                closure = TransitiveClosure.build(this, closureRepresentation);
+                transitiveClosure = closure;
+            } catch (CycleDetectedException e) {
+                cycleDetected = true;
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Enable or disable the GRAIL interval labels used by isAncestorOf when no transitive closure is available.
+     *
+     * The labels take O(V) memory. They are built on the first query following a mutation of the graph and never
+     * used if the graph contains a cycle.
+     *
+     * @param enabled true to enable the labels
+     */
+    public void setReachabilityLabelsEnabled(boolean enabled) {
+
+        this.reachabilityLabelsEnabled = enabled;
+        invalidateIndices();
+    }
+
+    /**
+     * @return the reachability labels of this graph (built if needed) or null if disabled or if the graph is cyclic
+     */
+    public ReachabilityLabels getReachabilityLabels() {
+
+        if (!reachabilityLabelsEnabled || cycleDetected) {
+            return null;
+        }
+
+        ReachabilityLabels labels = reachabilityLabels;
+
+        if (labels == null) {
+            try {
+                labels = ReachabilityLabels.build(this);
+                reachabilityLabels = labels;
+            } catch (CycleDetectedException e) {
+                cycleDetected = true;
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * @return the number of node and edge additions made to this graph so far (lets caches detect changes)
+     */
+    public long getModificationCount() {
+
+        return modificationCount;
+    }
+
+    private void invalidateIndices() {
+
+        transitiveClosure = null;
+        reachabilityLabels = null;
+        topologicalOrder = null;
+        cycleDetected = false;
+    }
+
+    /**
+     * Get the topological order of this graph, computed on the first call following a mutation of the graph
+     * @return the cached topological order
+     * @throws CycleDetectedException with the path of a cycle if the graph is not acyclic
+     */
+    @Override
+    public TopologicalOrder calcTopologicalOrder() throws CycleDetectedException {
+
+        TopologicalOrder order = topologicalOrder;
+
+        if (order == null) {
+            try {
+                order = TopologicalOrder.of(this);
+                topologicalOrder = order;
+            } catch (CycleDetectedException e) {
+                cycleDetected = true;
+                throw e;
+            }
+        }
+        return order;
     }
 
-    // TODO optimisation: could compute once and store all ancestors in map of nodes to ancestor nodes
     @Override
     public int[] getAncestors(int node) {
 
-        TIntSet ancestors = new TIntHashSet();
+        TransitiveClosure closure = getTransitiveClosure();
 
-        getAncestors(node, ancestors);
+        if (closure != null) {
+            return closure.getAncestors(node);
+        }
 
-        return ancestors.toArray();
+        return traversal.getAncestors(node);
     }
 
     @Override
@@ -316,81 +550,171 @@ public class IntGraph implements DirectedGraph, Externalizable {
     @Override
     public int[] getDescendants(int node, int maxDepth) {
 
-        TIntSet descendants = new TIntHashSet();
+        if (maxDepth == 0) {
 
-        getDescendants(node, 1, maxDepth, descendants);
+            TransitiveClosure closure = getTransitiveClosure();
+
+            if (closure != null) {
+                return closure.getDescendants(node);
+            }
+        }
 
-        return descendants.toArray();
+        return traversal.getDescendants(node, maxDepth);
     }
 
-    private void getAncestors(int node, TIntSet ancestors) {
+    @Override
+    public int[][] getAncestorsByDistance(int node, int maxDepth) {
+
+        return traversal.getAncestorsByDistance(node, maxDepth);
+    }
 
-        if (!predecessorLists.containsKey(node)) {
-            return;
+    @Override
+    public int[][] getDescendantsByDistance(int node, int maxDepth) {
+
+        return traversal.getDescendantsByDistance(node, maxDepth);
+    }
+
+    @Override
+    public boolean forEachNode(IntPredicate visitor) {
+
+        for (int i=0 ; i<nodes.size() ; i++) {
+
+            if (!visitor.test(nodes.get(i))) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        predecessorLists.get(node).forEach(predecessor -> {
+    @Override
+    public boolean forEachSuccessor(int node, IntPredicate visitor) {
 
-            ancestors.add(predecessor);
-            getAncestors(predecessor, ancestors);
+        int slot = slotsByNode.get(node);
 
-            return true;
-        });
+        return slot == -1 || visitEndPoints(outEdgeRows[slot], outDegrees[slot], heads, visitor);
     }
 
-    private void getDescendants(int node, int currentDepth, int maxDepth, TIntSet descendants) {
+    @Override
+    public boolean forEachPredecessor(int node, IntPredicate visitor) {
+
+        int slot = slotsByNode.get(node);
+
+        return slot == -1 || visitEndPoints(inEdgeRows[slot], inDegrees[slot], tails, visitor);
+    }
 
-        if (!successorLists.containsKey(node)) {
-            return;
+    @Override
+    public boolean forEachSuccessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        int slot = slotsByNode.get(node);
+        int code = edgeLabels.getCode(edgeLabel);
+
+        return slot == -1 || code == -1 || visitEndPoints(outEdgeRows[slot], outDegrees[slot], heads, code, visitor);
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        int slot = slotsByNode.get(node);
+        int code = edgeLabels.getCode(edgeLabel);
+
+        return slot == -1 || code == -1 || visitEndPoints(inEdgeRows[slot], inDegrees[slot], tails, code, visitor);
+    }
+
+    /**
+     * Visit the end points of the edges having the label of the given code
+     */
+    private boolean visitEndPoints(int[] edges, int degree, TIntList endPoints, int labelCode, IntPredicate visitor) {
+
+        for (int i=0 ; i<degree ; i++) {
+
+            if (edgeLabels.hasCode(edges[i], labelCode) && !visitor.test(endPoints.get(edges[i]))) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    private static boolean visitEndPoints(int[] edges, int degree, TIntList endPoints, IntPredicate visitor) {
 
-        successorLists.get(node).forEach(successor -> {
+        for (int i=0 ; i<degree ; i++) {
 
-            descendants.add(successor);
-            if(maxDepth == 0 || (maxDepth > currentDepth)){
-                getDescendants(successor, currentDepth + 1 , maxDepth,  descendants);
+            if (!visitor.test(endPoints.get(edges[i]))) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            return true;
-        });
+    @Override
+    public boolean forEachAncestor(int node, IntPredicate visitor) {
+
+        return traversal.visitAncestors(node, visitor);
+    }
+
+    @Override
+    public boolean forEachDescendant(int node, int maxDepth, IntPredicate visitor) {
+
+        return traversal.visitDescendants(node, maxDepth, visitor);
     }
 
     @Override
     public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
 
-        return arrayContainsElement(getAncestors(queryDescendant), queryAncestor);
+        TransitiveClosure closure = getTransitiveClosure();
+
+        if (closure != null) {
+            return closure.isAncestorOf(queryAncestor, queryDescendant);
+        }
+
+        ReachabilityLabels labels = getReachabilityLabels();
+
+        if (labels != null) {
+            return labels.isAncestorOf(queryAncestor, queryDescendant);
+        }
+
+        return traversal.isAncestorOf(queryAncestor, queryDescendant);
     }
 
     @Override
     public int[] getPredecessors(int node) {
 
-        if (!predecessorLists.containsKey(node)) {
-            return new int[0];
-        }
+        int slot = slotsByNode.get(node);
 
-        return predecessorLists.get(node).toArray();
+        return (slot == -1) ? new int[0] : getEndPoints(inEdgeRows[slot], inDegrees[slot], tails);
     }
 
     @Override
     public int[] getSuccessors(int node) {
 
-        if (!successorLists.containsKey(node)) {
-            return new int[0];
-        }
+        int slot = slotsByNode.get(node);
 
-        return successorLists.get(node).toArray();
+        return (slot == -1) ? new int[0] : getEndPoints(outEdgeRows[slot], outDegrees[slot], heads);
+    }
+
+    private static int[] getEndPoints(int[] edges, int degree, TIntList endPoints) {
+
+        int[] nodes = new int[degree];
+
+        for (int i=0 ; i<degree ; i++) {
+            nodes[i] = endPoints.get(edges[i]);
+        }
+        return nodes;
     }
 
     @Override
     public int getInDegree(int node) {
 
-        return getPredecessors(node).length;
+        int slot = slotsByNode.get(node);
+
+        return (slot == -1) ? 0 : inDegrees[slot];
     }
 
     @Override
     public int getOutDegree(int node) {
 
-        return getSuccessors(node).length;
+        int slot = slotsByNode.get(node);
+
+        return (slot == -1) ? 0 : outDegrees[slot];
     }
 
     @Override
@@ -423,66 +747,283 @@ public class IntGraph implements DirectedGraph, Externalizable {
         return sinks.toArray();
     }
 
+    /**
+     * Extract the subgraph induced by the given nodes in O(k + sum of their out-degrees).
+     *
+     * The nodes keep the given order (duplicates are ignored, unknown nodes are added without edges), their metadata
+     * and the labels of the edges between them are copied.
+     */
     @Override
     public IntGraph calcSubgraph(int... nodes) {
 
-        IntGraph sg = new IntGraph(graphLabel + " (subgraph)");
+        return calcSubgraph(this, this.nodes.size(), this::slotOf, slot -> Arrays.copyOf(outEdgeRows[slot], outDegrees[slot]),
+                metadata.getKeys(), nodes);
+    }
+
+    /**
+     * Extract the subgraph of a slot-indexed graph induced by the given nodes (shared by IntGraph, FrozenIntGraph and
+     * MappedIntGraph)
+     * @param graph the graph to extract the subgraph from
+     * @param slotCount the number of nodes of the graph
+     * @param slotOf the slot of a node or -1 if not found in the graph
+     * @param outEdgesOf the out-edges of a slot in edge id order
+     * @param metadataKeys the node metadata keys of the graph
+     * @param nodes the subgraph nodes
+     */
+    static IntGraph calcSubgraph(DirectedGraph graph, int slotCount, IntUnaryOperator slotOf, IntFunction<int[]> outEdgesOf,
+                                 String[] metadataKeys, int[] nodes) {
+
+        // membership of the subgraph nodes by slot of the graph
+        BitSet members = new BitSet(slotCount);
+        TIntSet unknownNodes = new TIntHashSet();
+        TIntArrayList sgNodes = new TIntArrayList(nodes.length);
+        TIntArrayList sgSlots = new TIntArrayList(nodes.length);
 
         for (int node : nodes) {
-             sg.addNode(node);
-             if (nodeMetadata.containsKey(node)) {
-                 Map<String, String> map = nodeMetadata.get(node);
 
-                 sg.nodeMetadata.put(node, new HashMap<>(map));
-                 map.values().forEach(v -> sg.nodesByMetadataValue.put(v, node));
-             }
+            if (node < 0) {
+                throw new IllegalStateException("node cannot be negative");
+            }
+
+            int slot = slotOf.applyAsInt(node);
+
+            if (slot != -1 && !members.get(slot)) {
+                members.set(slot);
+                sgNodes.add(node);
+                sgSlots.add(slot);
+            }
+            else if (slot == -1 && unknownNodes.add(node)) {
+                sgNodes.add(node);
+                sgSlots.add(-1);
+            }
+        }
+
+        TIntArrayList sgEdgeSources = new TIntArrayList();
+
+        for (int i=0 ; i<sgSlots.size() ; i++) {
+
+            int slot = sgSlots.getQuick(i);
+
+            if (slot == -1) {
+                continue;
+            }
+
+            for (int edge : outEdgesOf.apply(slot)) {
+
+                if (members.get(slotOf.applyAsInt(graph.getHeadNode(edge)))) {
+                    sgEdgeSources.add(edge);
+                }
+            }
+        }
+
+        return newSubgraph(graph, metadataKeys, sgNodes, sgEdgeSources);
+    }
+
+    /**
+     * Extract in a single traversal the subgraph made of the given seeds and all their ancestors.
+     *
+     * As every predecessor of a node of this subgraph is also part of it, the edges are exactly the in-edges met
+     * while walking up from the seeds: no membership check nor edge lookup is needed.
+     */
+    @Override
+    public IntGraph calcAncestorSubgraph(int... seeds) {
+
+        return calcClosureSubgraph(seeds, true);
+    }
+
+    /**
+     * Extract in a single traversal the subgraph made of the given seeds and all their descendants (the edges
+     * are the out-edges met while walking down from the seeds)
+     */
+    @Override
+    public IntGraph calcDescendantSubgraph(int... seeds) {
+
+        return calcClosureSubgraph(seeds, false);
+    }
+
+    private IntGraph calcClosureSubgraph(int[] seeds, boolean upward) {
+
+        BitSet visited = new BitSet(nodes.size());
+        // the subgraph slots in visiting order, also used as the breadth-first queue
+        TIntArrayList sgSlots = new TIntArrayList(seeds.length);
+        TIntArrayList sgEdgeSources = new TIntArrayList();
+
+        for (int seed : seeds) {
+
+            int slot = slotsByNode.get(seed);
+
+            if (slot != -1 && !visited.get(slot)) {
+                visited.set(slot);
+                sgSlots.add(slot);
+            }
+        }
+
+        for (int i=0 ; i<sgSlots.size() ; i++) {
+
+            int slot = sgSlots.getQuick(i);
+            int[] row = upward ? inEdgeRows[slot] : outEdgeRows[slot];
+            int degree = upward ? inDegrees[slot] : outDegrees[slot];
+
+            for (int j=0 ; j<degree ; j++) {
+
+                int edge = row[j];
+                int next = slotsByNode.get(upward ? tails.get(edge) : heads.get(edge));
+
+                sgEdgeSources.add(edge);
+
+                if (!visited.get(next)) {
+                    visited.set(next);
+                    sgSlots.add(next);
+                }
+            }
+        }
+
+        TIntArrayList sgNodes = new TIntArrayList(sgSlots.size());
+
+        sgSlots.forEach(slot -> sgNodes.add(nodes.get(slot)));
+
+        return newSubgraph(this, metadata.getKeys(), sgNodes, sgEdgeSources);
+    }
+
+    /**
+     * Create a subgraph of a graph with the edge labels and node metadata of the original nodes and edges (the single
+     * builder of the induced and closure subgraphs of IntGraph, FrozenIntGraph and MappedIntGraph)
+     * @param graph the graph to extract the subgraph from
+     * @param metadataKeys the node metadata keys of the graph
+     * @param sgNodes the distinct subgraph nodes (nodes not found in the graph have no metadata)
+     * @param sgEdgeSources the edges of the graph to copy, between subgraph nodes
+     */
+    static IntGraph newSubgraph(DirectedGraph graph, String[] metadataKeys, TIntArrayList sgNodes, TIntArrayList sgEdgeSources) {
+
+        TIntArrayList sgTails = new TIntArrayList(sgEdgeSources.size());
+        TIntArrayList sgHeads = new TIntArrayList(sgEdgeSources.size());
+
+        sgEdgeSources.forEach(edge -> {
+            sgTails.add(graph.getTailNode(edge));
+            sgHeads.add(graph.getHeadNode(edge));
+            return true;
+        });
+
+        IntGraph sg = new IntGraph(graph.getGraphLabel() + " (subgraph)", sgNodes, sgTails, sgHeads);
+
+        for (int sgEdge=0 ; sgEdge<sgEdgeSources.size() ; sgEdge++) {
+
+            String label = graph.getEdgeLabel(sgEdgeSources.getQuick(sgEdge));
+
+            if (label != null) {
+                sg.edgeLabels.put(sgEdge, label);
+            }
         }
 
-        // get all incident edges
-        int[] edges = getEdgesIncidentTo(sg.getNodes());
+        for (String key : metadataKeys) {
 
-        // then add only the ones where heads and tails are contained in nodes
-        for (int i=0; i < edges.length ; i++) {
+            for (int sgSlot=0 ; sgSlot<sgNodes.size() ; sgSlot++) {
 
-            int tail = getTailNode(edges[i]);
-            int head = getHeadNode(edges[i]);
-            String label = getEdgeLabel(edges[i]);
+                String value = graph.getNodeMetadataValue(sgNodes.getQuick(sgSlot), key);
 
-            if (sg.containsNode(tail) && sg.containsNode(head)) {
-                int eid = sg.addEdge(tail, head);
-                sg.setEdgeLabel(eid, label);
+                if (value != null) {
+                    sg.metadata.put(sgSlot, key, value);
+                }
             }
         }
 
         return sg;
     }
 
+    /**
+     * Make an immutable copy of this graph stored in compressed sparse row arrays.
+     *
+     * The frozen graph answers every DirectedGraph query like this graph (node and edge ids are preserved) but
+     * with a much smaller memory footprint and cache-friendly traversals.
+     *
+     * @return an immutable snapshot of this graph
+     */
+    public FrozenIntGraph freeze() {
+
+        return new FrozenIntGraph(this);
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
 
+        out.writeInt(SERIAL_FORMAT_VERSION);
         out.writeObject(graphLabel);
         ((TIntArrayList)nodes).writeExternal(out);
         ((TIntArrayList)tails).writeExternal(out);
         ((TIntArrayList)heads).writeExternal(out);
-        ((TIntObjectHashMap)predecessorLists).writeExternal(out);
-        ((TIntObjectHashMap)successorLists).writeExternal(out);
-        ((TIntObjectHashMap)nodeMetadata).writeExternal(out);
-        ((TObjectIntHashMap)nodesByMetadataValue).writeExternal(out);
-        ((TIntObjectHashMap)edgeLabels).writeExternal(out);
+
+        metadata.write(out, nodes.size());
+        edgeLabels.write(out, tails.size());
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 
+        int version = in.readInt();
+
+        if (version != SERIAL_FORMAT_VERSION) {
+            throw new InvalidClassException(IntGraph.class.getName(), "unsupported serialized format version "+version
+                    +" (expected "+SERIAL_FORMAT_VERSION+")");
+        }
+
         graphLabel = (String) in.readObject();
         ((TIntArrayList)nodes).readExternal(in);
         ((TIntArrayList)tails).readExternal(in);
         ((TIntArrayList)heads).readExternal(in);
-        ((TIntObjectHashMap)predecessorLists).readExternal(in);
-        ((TIntObjectHashMap)successorLists).readExternal(in);
-        ((TIntObjectHashMap)nodeMetadata).readExternal(in);
-        ((TObjectIntHashMap)nodesByMetadataValue).readExternal(in);
-        ((TIntObjectHashMap)edgeLabels).readExternal(in);
+        metadata = NodeMetadataStore.read(in, nodes.size());
+        edgeLabels = EdgeLabelStore.read(in, tails.size());
+
+        rebuildIndices();
+    }
+
+    /**
+     * Rebuild the node slots and the edge rows (sized to the node degrees) from nodes, tails and heads, the edge index
+     * is dropped and rebuilt on first use
+     */
+    private void rebuildIndices() {
+
+        int nodeCount = nodes.size();
+        int edgeCount = tails.size();
+        int capacity = Math.max(INITIAL_SLOT_CAPACITY, nodeCount);
+
+        slotsByNode = new TIntIntHashMap(capacity, 0.5f, -1, -1);
+        inEdgeRows = new int[capacity][];
+        outEdgeRows = new int[capacity][];
+        inDegrees = new int[capacity];
+        outDegrees = new int[capacity];
+        edgesByEndPoints = null;
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+            slotsByNode.put(nodes.get(slot), slot);
+        }
+
+        int[] tailSlots = new int[edgeCount];
+        int[] headSlots = new int[edgeCount];
+
+        for (int edge=0 ; edge<edgeCount ; edge++) {
+
+            tailSlots[edge] = slotsByNode.get(tails.get(edge));
+            headSlots[edge] = slotsByNode.get(heads.get(edge));
+            outDegrees[tailSlots[edge]]++;
+            inDegrees[headSlots[edge]]++;
+        }
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+
+            outEdgeRows[slot] = (outDegrees[slot] == 0) ? NO_EDGES : new int[outDegrees[slot]];
+            inEdgeRows[slot] = (inDegrees[slot] == 0) ? NO_EDGES : new int[inDegrees[slot]];
+        }
+
+        Arrays.fill(outDegrees, 0);
+        Arrays.fill(inDegrees, 0);
+
+        for (int edge=0 ; edge<edgeCount ; edge++) {
+
+            outEdgeRows[tailSlots[edge]][outDegrees[tailSlots[edge]]++] = edge;
+            inEdgeRows[headSlots[edge]][inDegrees[headSlots[edge]]++] = edge;
+        }
+
+        invalidateIndices();
     }
 
     static boolean arrayContainsElement(int[] array, int element) {
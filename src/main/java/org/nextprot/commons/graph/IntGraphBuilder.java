@@ -0,0 +1,276 @@
+package org.nextprot.commons.graph;
+
+import com.google.common.base.Preconditions;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.LongStream;
+
+/**
+ * Build an IntGraph from many edges at once.
+ *
+ * Edges are buffered as packed longs (tail in the high 32 bits, head in the low 32 bits). On {@link #build()} they
+ * are repacked on the bits needed by the largest node and sorted with a least significant digit radix sort,
+ * duplicates are dropped and the graph is created in a single pass with its adjacency rows sized to the node
+ * degrees, avoiding the per-edge lookups of {@link IntGraph#addEdge}. Distinct nodes are collected in a bitset over
+ * the range of node ids unless the ids are too sparse.
+ *
+ * The built graph has its nodes in increasing order and its edges sorted by tail then head (edge ids follow this
+ * order). Adding the same node or edge more than once is not an error.
+ */
+public final class IntGraphBuilder {
+
+    /** bits sorted per radix sort pass */
+    static final int RADIX_BITS = 11;
+    /** smaller arrays are sorted with Arrays.sort */
+    static final int RADIX_SORT_THRESHOLD = 4096;
+
+    private final String label;
+    private final TIntArrayList nodes = new TIntArrayList();
+    private long[] edges = new long[16];
+    private int edgeCount;
+    private int minNode = Integer.MAX_VALUE;
+    private int maxNode = -1;
+
+    public IntGraphBuilder() {
+
+        this("");
+    }
+
+    public IntGraphBuilder(String label) {
+
+        Preconditions.checkNotNull(label, "graph label should be defined");
+        this.label = label;
+    }
+
+    /**
+     * @return the edge tail -> head packed in a long
+     */
+    public static long packEdge(int tail, int head) {
+
+        return ((long) tail << 32) | (head & 0xFFFFFFFFL);
+    }
+
+    public IntGraphBuilder addNode(int node) {
+
+        checkNode(node);
+        nodes.add(node);
+        minNode = Math.min(minNode, node);
+        maxNode = Math.max(maxNode, node);
+        return this;
+    }
+
+    public IntGraphBuilder addEdge(int tail, int head) {
+
+        checkNode(tail);
+        checkNode(head);
+
+        if (edgeCount == edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[edgeCount++] = packEdge(tail, head);
+        minNode = Math.min(minNode, Math.min(tail, head));
+        maxNode = Math.max(maxNode, Math.max(tail, head));
+        return this;
+    }
+
+    /**
+     * Add the edges tails[i] -> heads[i]
+     */
+    public IntGraphBuilder addEdges(int[] tails, int[] heads) {
+
+        Preconditions.checkArgument(tails.length == heads.length, "tails and heads should have the same length");
+
+        ensureEdgeCapacity(edgeCount + tails.length);
+
+        for (int i=0 ; i<tails.length ; i++) {
+            addEdge(tails[i], heads[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Add edges packed with {@link #packEdge(int, int)}
+     */
+    public IntGraphBuilder addEdges(LongStream packedEdges) {
+
+        packedEdges.forEachOrdered(edge -> addEdge((int) (edge >>> 32), (int) edge));
+        return this;
+    }
+
+    private void ensureEdgeCapacity(int capacity) {
+
+        if (capacity > edges.length) {
+            edges = Arrays.copyOf(edges, Math.max(capacity, edges.length * 2));
+        }
+    }
+
+    private static void checkNode(int node) {
+
+        if (node < 0) {
+            throw new IllegalStateException("node cannot be negative");
+        }
+    }
+
+    /**
+     * @return the number of edges added so far, duplicates included
+     */
+    public int countEdges() {
+
+        return edgeCount;
+    }
+
+    /**
+     * @return a new graph with the nodes and distinct edges added so far
+     */
+    public IntGraph build() {
+
+        // tail and head packed on the bits of the largest node
+        int nodeBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, maxNode));
+        long headMask = (1L << nodeBits) - 1;
+        long[] sortedEdges = new long[edgeCount];
+
+        for (int i=0 ; i<edgeCount ; i++) {
+            sortedEdges[i] = ((edges[i] >>> 32) << nodeBits) | (edges[i] & 0xFFFFFFFFL);
+        }
+
+        sort(sortedEdges, 2 * nodeBits);
+
+        int distinctEdgeCount = removeDuplicates(sortedEdges);
+
+        TIntArrayList tails = new TIntArrayList(distinctEdgeCount);
+        TIntArrayList heads = new TIntArrayList(distinctEdgeCount);
+
+        for (int i=0 ; i<distinctEdgeCount ; i++) {
+
+            tails.add((int) (sortedEdges[i] >>> nodeBits));
+            heads.add((int) (sortedEdges[i] & headMask));
+        }
+
+        return new IntGraph(label, collectNodes(tails, heads), tails, heads);
+    }
+
+    /**
+     * @return the distinct nodes in increasing order
+     */
+    private TIntArrayList collectNodes(TIntArrayList tails, TIntArrayList heads) {
+
+        int endPointCount = nodes.size() + tails.size() + heads.size();
+
+        if (endPointCount == 0) {
+            return new TIntArrayList();
+        }
+
+        // up to 2^31 node ids
+        long idRange = (long) maxNode - minNode + 1;
+
+        // a bitset is cheaper than sorting all the end points unless node ids are very sparse
+        if (idRange / 64 <= endPointCount) {
+
+            // bit b is node minNode+b
+            BitSet members = new BitSet((int) Math.min(idRange, Integer.MAX_VALUE));
+
+            nodes.forEach(node -> { members.set(node - minNode); return true; });
+            tails.forEach(node -> { members.set(node - minNode); return true; });
+            heads.forEach(node -> { members.set(node - minNode); return true; });
+
+            TIntArrayList distinctNodes = new TIntArrayList(members.cardinality());
+
+            // the last bit is Integer.MAX_VALUE at most: stop before bit+1 overflows
+            for (int bit = members.nextSetBit(0) ; bit >= 0 ; bit = (bit < Integer.MAX_VALUE) ? members.nextSetBit(bit+1) : -1) {
+                distinctNodes.add(minNode + bit);
+            }
+            return distinctNodes;
+        }
+
+        int[] endPoints = new int[endPointCount];
+
+        nodes.toArray(endPoints, 0, nodes.size());
+        tails.toArray(endPoints, 0, nodes.size(), tails.size());
+        heads.toArray(endPoints, 0, nodes.size() + tails.size(), heads.size());
+
+        Arrays.sort(endPoints);
+
+        int nodeCount = removeDuplicates(endPoints);
+
+        TIntArrayList distinctNodes = new TIntArrayList(nodeCount);
+        distinctNodes.add(endPoints, 0, nodeCount);
+
+        return distinctNodes;
+    }
+
+    /**
+     * Sort non-negative values lower than 2^bits
+     */
+    static void sort(long[] values, int bits) {
+
+        if (values.length < RADIX_SORT_THRESHOLD) {
+            Arrays.sort(values);
+            return;
+        }
+
+        long[] buffer = new long[values.length];
+        int[] counts = new int[1 << RADIX_BITS];
+        int mask = (1 << RADIX_BITS) - 1;
+
+        for (int shift=0 ; shift<bits ; shift+=RADIX_BITS) {
+
+            Arrays.fill(counts, 0);
+
+            for (long value : values) {
+                counts[(int) (value >>> shift) & mask]++;
+            }
+
+            for (int digit=0, offset=0 ; digit<counts.length ; digit++) {
+
+                int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+
+            for (long value : values) {
+                buffer[counts[(int) (value >>> shift) & mask]++] = value;
+            }
+
+            long[] sorted = buffer;
+            buffer = values;
+            values = sorted;
+        }
+
+        // after an odd number of passes the sorted values are in the buffer
+        if (((bits + RADIX_BITS - 1) / RADIX_BITS) % 2 == 1) {
+            System.arraycopy(values, 0, buffer, 0, values.length);
+        }
+    }
+
+    /**
+     * Move the distinct values of a sorted array to its beginning
+     * @return the number of distinct values
+     */
+    private static int removeDuplicates(long[] sorted) {
+
+        int size = 0;
+
+        for (int i=0 ; i<sorted.length ; i++) {
+
+            if (size == 0 || sorted[i] != sorted[size-1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
+    private static int removeDuplicates(int[] sorted) {
+
+        int size = 0;
+
+        for (int i=0 ; i<sorted.length ; i++) {
+
+            if (size == 0 || sorted[i] != sorted[size-1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,796 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * A read-only directed graph queried directly from a memory-mapped binary file.
+ *
+ * Opening a graph file only maps it: nothing is deserialized, the graph is immediately queryable and its pages are
+ * loaded on demand and shared through the OS page cache between all processes mapping the same file.
+ *
+ * File layout (version 1), all values are little-endian 32-bit ints except the string bytes:
+ * <pre>
+ * header           magic, version, nodeCount V, edgeCount E, metadataKeyCount K, metadataValueCount M,
+ *                  stringCount S, graphLabel (string index), stringBytesLength
+ * nodes            V node ids by slot
+ * sortedNodes      V node ids in ascending order, followed by their V slots
+ * tails, heads     E tail node ids, E head node ids
+ * out rows         V+1 offsets, E head slots, E edge ids (CSR sorted by tail slot)
+ * in rows          V+1 offsets, E tail slots, E edge ids (CSR sorted by head slot)
+ * edgeLabels       E string indices (-1 if none)
+ * metadataKeys     K string indices, then K columns of V value string indices (-1 if none)
+ * metadataIndex    M value string indices sorted by UTF-8 bytes, followed by their M node ids
+ * strings          S+1 byte offsets, then the UTF-8 bytes of all strings
+ * </pre>
+ *
+ * Graph files are written with {@link #write(DirectedGraph, Path)}. They are limited to 2GB.
+ */
+public final class MappedIntGraph implements DirectedGraph {
+
+    static final int MAGIC = 0x4E584752;
+    static final int VERSION = 1;
+    private static final int HEADER_INTS = 9;
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final String graphLabel;
+    private final String[] metadataKeys;
+    private final int metadataValueCount;
+
+    // byte positions of sections
+    private final int nodesPos;
+    private final int sortedNodesPos;
+    private final int sortedSlotsPos;
+    private final int tailsPos;
+    private final int headsPos;
+    private final int outOffsetsPos;
+    private final int outTargetsPos;
+    private final int outEdgesPos;
+    private final int inOffsetsPos;
+    private final int inSourcesPos;
+    private final int inEdgesPos;
+    private final int edgeLabelsPos;
+    private final int metadataColumnsPos;
+    private final int metadataValuesPos;
+    private final int metadataNodesPos;
+    private final int stringOffsetsPos;
+    private final int stringBytesPos;
+    // ancestor/descendant queries over node slots (the traversal buffers are kept per thread by GraphTraversal)
+    private final GraphTraversal traversal = new GraphTraversal(this);
+
+    private MappedIntGraph(ByteBuffer buffer) throws IOException {
+
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.capacity() < HEADER_INTS * Integer.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a graph file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported graph file version "+buffer.getInt(4));
+        }
+
+        this.nodeCount = buffer.getInt(8);
+        this.edgeCount = buffer.getInt(12);
+
+        int keyCount = buffer.getInt(16);
+        this.metadataValueCount = buffer.getInt(20);
+        int stringCount = buffer.getInt(24);
+        int stringBytesLength = buffer.getInt(32);
+
+        Layout layout = new Layout(nodeCount, edgeCount, keyCount, metadataValueCount, stringCount);
+
+        if (buffer.capacity() != layout.stringBytesPos + stringBytesLength) {
+            throw new IOException("truncated graph file");
+        }
+
+        this.nodesPos = layout.nodesPos;
+        this.sortedNodesPos = layout.sortedNodesPos;
+        this.sortedSlotsPos = layout.sortedSlotsPos;
+        this.tailsPos = layout.tailsPos;
+        this.headsPos = layout.headsPos;
+        this.outOffsetsPos = layout.outOffsetsPos;
+        this.outTargetsPos = layout.outTargetsPos;
+        this.outEdgesPos = layout.outEdgesPos;
+        this.inOffsetsPos = layout.inOffsetsPos;
+        this.inSourcesPos = layout.inSourcesPos;
+        this.inEdgesPos = layout.inEdgesPos;
+        this.edgeLabelsPos = layout.edgeLabelsPos;
+        this.metadataColumnsPos = layout.metadataColumnsPos;
+        this.metadataValuesPos = layout.metadataValuesPos;
+        this.metadataNodesPos = layout.metadataNodesPos;
+        this.stringOffsetsPos = layout.stringOffsetsPos;
+        this.stringBytesPos = layout.stringBytesPos;
+
+        this.graphLabel = getString(buffer.getInt(28));
+        this.metadataKeys = new String[keyCount];
+
+        for (int k=0 ; k<keyCount ; k++) {
+            metadataKeys[k] = getString(buffer.getInt(layout.metadataKeysPos + k*Integer.BYTES));
+        }
+    }
+
+    /**
+     * Map a graph file in memory
+     * @param file a file written by {@link #write(DirectedGraph, Path)}
+     * @return a read-only graph backed by the mapped file
+     * @throws IOException if the file cannot be mapped or is not a valid graph file
+     */
+    public static MappedIntGraph open(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("graph file too large: "+channel.size()+" bytes");
+            }
+
+            // the mapping stays valid after the channel is closed
+            return new MappedIntGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write the given graph in the binary format read by {@link #open(Path)}
+     * @param graph the graph to write
+     * @param file the file to create or overwrite
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(DirectedGraph graph, Path file) throws IOException {
+
+        new Writer(FrozenIntGraph.of(graph)).write(file);
+    }
+
+    /**
+     * Byte positions of the file sections
+     */
+    private static class Layout {
+
+        private final int nodesPos;
+        private final int sortedNodesPos;
+        private final int sortedSlotsPos;
+        private final int tailsPos;
+        private final int headsPos;
+        private final int outOffsetsPos;
+        private final int outTargetsPos;
+        private final int outEdgesPos;
+        private final int inOffsetsPos;
+        private final int inSourcesPos;
+        private final int inEdgesPos;
+        private final int edgeLabelsPos;
+        private final int metadataKeysPos;
+        private final int metadataColumnsPos;
+        private final int metadataValuesPos;
+        private final int metadataNodesPos;
+        private final int stringOffsetsPos;
+        private final int stringBytesPos;
+
+        private Layout(int nodeCount, int edgeCount, int keyCount, int valueCount, int stringCount) throws IOException {
+
+            long pos = HEADER_INTS * Integer.BYTES;
+
+            nodesPos = toInt(pos);
+            sortedNodesPos = toInt(pos += 4L * nodeCount);
+            sortedSlotsPos = toInt(pos += 4L * nodeCount);
+            tailsPos = toInt(pos += 4L * nodeCount);
+            headsPos = toInt(pos += 4L * edgeCount);
+            outOffsetsPos = toInt(pos += 4L * edgeCount);
+            outTargetsPos = toInt(pos += 4L * (nodeCount + 1));
+            outEdgesPos = toInt(pos += 4L * edgeCount);
+            inOffsetsPos = toInt(pos += 4L * edgeCount);
+            inSourcesPos = toInt(pos += 4L * (nodeCount + 1));
+            inEdgesPos = toInt(pos += 4L * edgeCount);
+            edgeLabelsPos = toInt(pos += 4L * edgeCount);
+            metadataKeysPos = toInt(pos += 4L * edgeCount);
+            metadataColumnsPos = toInt(pos += 4L * keyCount);
+            metadataValuesPos = toInt(pos += 4L * keyCount * nodeCount);
+            metadataNodesPos = toInt(pos += 4L * valueCount);
+            stringOffsetsPos = toInt(pos += 4L * valueCount);
+            stringBytesPos = toInt(pos + 4L * (stringCount + 1));
+        }
+
+        private static int toInt(long pos) throws IOException {
+
+            if (pos > Integer.MAX_VALUE) {
+                throw new IOException("graph file too large: more than "+Integer.MAX_VALUE+" bytes");
+            }
+            return (int) pos;
+        }
+    }
+
+    private int intAt(int pos, int index) {
+
+        return buffer.getInt(pos + index * Integer.BYTES);
+    }
+
+    private String getString(int index) {
+
+        if (index == -1) {
+            return null;
+        }
+
+        int from = stringBytesPos + intAt(stringOffsetsPos, index);
+        int to = stringBytesPos + intAt(stringOffsetsPos, index+1);
+
+        byte[] bytes = new byte[to-from];
+        for (int i=0 ; i<bytes.length ; i++) {
+            bytes[i] = buffer.get(from+i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare the UTF-8 bytes of the string at the given index with the given bytes (unsigned lexicographic order)
+     */
+    private int compareString(int index, byte[] bytes) {
+
+        int from = stringBytesPos + intAt(stringOffsetsPos, index);
+        int length = stringBytesPos + intAt(stringOffsetsPos, index+1) - from;
+
+        for (int i=0 ; i<Math.min(length, bytes.length) ; i++) {
+
+            int cmp = Integer.compare(buffer.get(from+i) & 0xFF, bytes[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, bytes.length);
+    }
+
+    /**
+     * @return the slot of the given node or -1 if not found
+     */
+    int slotOf(int node) {
+
+        int low = 0;
+        int high = nodeCount-1;
+
+        while (low <= high) {
+
+            int mid = (low + high) >>> 1;
+            int midNode = intAt(sortedNodesPos, mid);
+
+            if (midNode < node) {
+                low = mid + 1;
+            }
+            else if (midNode > node) {
+                high = mid - 1;
+            }
+            else {
+                return intAt(sortedSlotsPos, mid);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void setGraphLabel(String label) {
+
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    @Override
+    public String getGraphLabel() {
+
+        return graphLabel;
+    }
+
+    @Override
+    public void addNode(int node) {
+
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    @Override
+    public void addNodeMetadata(int node, String key, String value) {
+
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    @Override
+    public String getNodeMetadataValue(int node, String key) {
+
+        int slot = slotOf(node);
+
+        if (slot == -1) {
+            return null;
+        }
+
+        for (int k=0 ; k<metadataKeys.length ; k++) {
+
+            if (metadataKeys[k].equals(key)) {
+                return getString(intAt(metadataColumnsPos, k * nodeCount + slot));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the metadata keys in file order
+     */
+    String[] getMetadataKeys() {
+
+        return metadataKeys.clone();
+    }
+
+    @Override
+    public int getNodeFromMetadata(String value) {
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        int low = 0;
+        int high = metadataValueCount-1;
+
+        while (low <= high) {
+
+            int mid = (low + high) >>> 1;
+            int cmp = compareString(intAt(metadataValuesPos, mid), bytes);
+
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return intAt(metadataNodesPos, mid);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int addEdge(int tail, int head) {
+
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    @Override
+    public void setEdgeLabel(int edge, String label) {
+
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+
+    @Override
+    public String getEdgeLabel(int edge) {
+
+        return containsEdge(edge) ? getString(intAt(edgeLabelsPos, edge)) : null;
+    }
+
+    @Override
+    public int[] getNodes() {
+
+        int[] nodes = new int[nodeCount];
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+            nodes[slot] = intAt(nodesPos, slot);
+        }
+        return nodes;
+    }
+
+    @Override
+    public int[] getEdges() {
+
+        return IntStream.range(0, edgeCount).toArray();
+    }
+
+    @Override
+    public int getEdge(int tail, int head) {
+
+        int tailSlot = slotOf(tail);
+        int headSlot = slotOf(head);
+
+        if (tailSlot == -1 || headSlot == -1) {
+            return -1;
+        }
+
+        for (int i=intAt(outOffsetsPos, tailSlot) ; i<intAt(outOffsetsPos, tailSlot+1) ; i++) {
+
+            if (intAt(outTargetsPos, i) == headSlot) {
+                return intAt(outEdgesPos, i);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int[] getEdgesIncidentTo(int... nodes) {
+
+        TIntSet edges = new TIntHashSet();
+
+        edges.addAll(getInEdges(nodes));
+        edges.addAll(getOutEdges(nodes));
+
+        return edges.toArray();
+    }
+
+    @Override
+    public int[] getInEdges(int... nodes) {
+
+        return collectRowEdges(nodes, inOffsetsPos, inEdgesPos);
+    }
+
+    @Override
+    public int[] getOutEdges(int... nodes) {
+
+        return collectRowEdges(nodes, outOffsetsPos, outEdgesPos);
+    }
+
+    private int[] collectRowEdges(int[] nodes, int offsetsPos, int edgesPos) {
+
+        TIntSet edges = new TIntHashSet();
+
+        for (int node : nodes) {
+
+            int slot = slotOf(node);
+
+            if (slot == -1) {
+                continue;
+            }
+
+            for (int i=intAt(offsetsPos, slot) ; i<intAt(offsetsPos, slot+1) ; i++) {
+                edges.add(intAt(edgesPos, i));
+            }
+        }
+
+        return edges.toArray();
+    }
+
+    @Override
+    public int getTailNode(int edge) {
+
+        return containsEdge(edge) ? intAt(tailsPos, edge) : -1;
+    }
+
+    @Override
+    public int getHeadNode(int edge) {
+
+        return containsEdge(edge) ? intAt(headsPos, edge) : -1;
+    }
+
+    @Override
+    public boolean containsNode(int node) {
+
+        return slotOf(node) != -1;
+    }
+
+    @Override
+    public boolean containsEdge(int edge) {
+
+        return edge >= 0 && edge < edgeCount;
+    }
+
+    @Override
+    public boolean containsEdge(int tail, int head) {
+
+        return getEdge(tail, head) != -1;
+    }
+
+    @Override
+    public int[] getAncestors(int node) {
+
+        return traversal.getAncestors(node);
+    }
+
+    @Override
+    public int[] getDescendants(int node) {
+
+        return getDescendants(node, 0);
+    }
+
+    @Override
+    public int[] getDescendants(int node, int maxDepth) {
+
+        return traversal.getDescendants(node, maxDepth);
+    }
+
+    @Override
+    public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
+
+        return traversal.isAncestorOf(queryAncestor, queryDescendant);
+    }
+
+    @Override
+    public int[] getPredecessors(int node) {
+
+        TIntArrayList predecessors = new TIntArrayList();
+
+        forEachPredecessor(node, predecessors::add);
+
+        return predecessors.toArray();
+    }
+
+    @Override
+    public int[] getSuccessors(int node) {
+
+        TIntArrayList successors = new TIntArrayList();
+
+        forEachSuccessor(node, successors::add);
+
+        return successors.toArray();
+    }
+
+    @Override
+    public boolean forEachNode(IntPredicate visitor) {
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+
+            if (!visitor.test(intAt(nodesPos, slot))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean forEachSuccessor(int node, IntPredicate visitor) {
+
+        return visitRow(node, outOffsetsPos, outTargetsPos, visitor);
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, IntPredicate visitor) {
+
+        return visitRow(node, inOffsetsPos, inSourcesPos, visitor);
+    }
+
+    private boolean visitRow(int node, int offsetsPos, int targetsPos, IntPredicate visitor) {
+
+        int slot = slotOf(node);
+
+        if (slot == -1) {
+            return true;
+        }
+
+        for (int i=intAt(offsetsPos, slot) ; i<intAt(offsetsPos, slot+1) ; i++) {
+
+            if (!visitor.test(intAt(nodesPos, intAt(targetsPos, i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getInDegree(int node) {
+
+        return rowLength(node, inOffsetsPos);
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+
+        return rowLength(node, outOffsetsPos);
+    }
+
+    private int rowLength(int node, int offsetsPos) {
+
+        int slot = slotOf(node);
+
+        return (slot == -1) ? 0 : intAt(offsetsPos, slot+1) - intAt(offsetsPos, slot);
+    }
+
+    @Override
+    public int[] getSources() {
+
+        TIntArrayList sources = new TIntArrayList();
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+
+            if (intAt(inOffsetsPos, slot+1) == intAt(inOffsetsPos, slot) && intAt(outOffsetsPos, slot+1) > intAt(outOffsetsPos, slot)) {
+                sources.add(intAt(nodesPos, slot));
+            }
+        }
+        return sources.toArray();
+    }
+
+    @Override
+    public int[] getSinks() {
+
+        TIntArrayList sinks = new TIntArrayList();
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+
+            if (intAt(inOffsetsPos, slot+1) > intAt(inOffsetsPos, slot) && intAt(outOffsetsPos, slot+1) == intAt(outOffsetsPos, slot)) {
+                sinks.add(intAt(nodesPos, slot));
+            }
+        }
+        return sinks.toArray();
+    }
+
+    /**
+     * Extract the subgraph induced by the given nodes in O(k log V + sum of their out-degrees) (duplicates are
+     * ignored, unknown nodes are added without edges)
+     */
+    @Override
+    public IntGraph calcSubgraph(int... nodes) {
+
+        return IntGraph.calcSubgraph(this, nodeCount, this::slotOf, this::outEdgesOf, metadataKeys, nodes);
+    }
+
+    private int[] outEdgesOf(int slot) {
+
+        int from = intAt(outOffsetsPos, slot);
+        int[] edges = new int[intAt(outOffsetsPos, slot+1) - from];
+
+        for (int i=0 ; i<edges.length ; i++) {
+            edges[i] = intAt(outEdgesPos, from+i);
+        }
+        return edges;
+    }
+
+    @Override
+    public int countNodes() {
+
+        return nodeCount;
+    }
+
+    @Override
+    public int countEdges() {
+
+        return edgeCount;
+    }
+
+    /**
+     * Serialize a frozen graph in the mapped file format
+     */
+    private static class Writer {
+
+        private final FrozenIntGraph graph;
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        private Writer(FrozenIntGraph graph) {
+
+            this.graph = graph;
+        }
+
+        private int stringIndex(String string) {
+
+            if (string == null) {
+                return -1;
+            }
+
+            return strings.computeIfAbsent(string, s -> strings.size());
+        }
+
+        private void write(Path file) throws IOException {
+
+            int nodeCount = graph.countNodes();
+            int edgeCount = graph.countEdges();
+
+            // collect metadata keys and the reverse index
+            Set<String> keySet = new TreeSet<>(Arrays.asList(graph.getMetadataKeys()));
+            Set<String> values = new HashSet<>();
+
+            for (String key : keySet) {
+                for (int slot=0 ; slot<nodeCount ; slot++) {
+
+                    String value = graph.getNodeMetadataValue(graph.nodeAt(slot), key);
+
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+            }
+
+            String[] keys = keySet.toArray(new String[0]);
+            String[] sortedValues = values.toArray(new String[0]);
+            Arrays.sort(sortedValues, Comparator.comparing(v -> v.getBytes(StandardCharsets.UTF_8), MappedIntGraph::compareUnsigned));
+
+            // the section sizes are checked in long before allocating them (the string table is checked below), so
+            // keys.length * nodeCount cannot overflow
+            new Layout(nodeCount, edgeCount, keys.length, sortedValues.length, 0);
+
+            // intern strings first to know the string table size
+            int graphLabelIndex = stringIndex(graph.getGraphLabel());
+            int[] edgeLabels = new int[edgeCount];
+            for (int edge=0 ; edge<edgeCount ; edge++) {
+                edgeLabels[edge] = stringIndex(graph.getEdgeLabel(edge));
+            }
+            int[] keyIndices = new int[keys.length];
+            for (int k=0 ; k<keys.length ; k++) {
+                keyIndices[k] = stringIndex(keys[k]);
+            }
+            int[] columns = new int[keys.length * nodeCount];
+            for (int k=0 ; k<keys.length ; k++) {
+                for (int slot=0 ; slot<nodeCount ; slot++) {
+                    columns[k*nodeCount+slot] = stringIndex(graph.getNodeMetadataValue(graph.nodeAt(slot), keys[k]));
+                }
+            }
+            int[] valueIndices = new int[sortedValues.length];
+            int[] valueNodes = new int[sortedValues.length];
+            for (int i=0 ; i<sortedValues.length ; i++) {
+                valueIndices[i] = stringIndex(sortedValues[i]);
+                valueNodes[i] = graph.getNodeFromMetadata(sortedValues[i]);
+            }
+
+            int[] stringOffsets = new int[strings.size()+1];
+            List<byte[]> stringBytes = new ArrayList<>(strings.size());
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                stringBytes.add(bytes);
+                stringOffsets[stringBytes.size()] = stringOffsets[stringBytes.size()-1] + bytes.length;
+            }
+
+            Layout layout = new Layout(nodeCount, edgeCount, keys.length, sortedValues.length, strings.size());
+            long size = (long) layout.stringBytesPos + stringOffsets[strings.size()];
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("graph file too large: "+size+" bytes");
+            }
+
+            int[] nodes = graph.getNodes();
+            int[] sortedNodes = nodes.clone();
+            Arrays.sort(sortedNodes);
+            int[] sortedSlots = new int[nodeCount];
+            for (int i=0 ; i<nodeCount ; i++) {
+                sortedSlots[i] = graph.slotOf(sortedNodes[i]);
+            }
+            int[] tails = new int[edgeCount];
+            int[] heads = new int[edgeCount];
+            for (int edge=0 ; edge<edgeCount ; edge++) {
+                tails[edge] = graph.getTailNode(edge);
+                heads[edge] = graph.getHeadNode(edge);
+            }
+
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+
+                raf.setLength(size);
+
+                ByteBuffer out = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+
+                for (int value : new int[] {MAGIC, VERSION, nodeCount, edgeCount, keys.length, sortedValues.length,
+                        strings.size(), graphLabelIndex, stringOffsets[strings.size()]}) {
+                    out.putInt(value);
+                }
+
+                for (int[] section : new int[][] {nodes, sortedNodes, sortedSlots, tails, heads,
+                        graph.outOffsets(), graph.outTargets(), graph.outEdges(),
+                        graph.inOffsets(), graph.inSources(), graph.inEdges(),
+                        edgeLabels, keyIndices, columns, valueIndices, valueNodes, stringOffsets}) {
+                    for (int value : section) {
+                        out.putInt(value);
+                    }
+                }
+
+                for (byte[] bytes : stringBytes) {
+                    out.put(bytes);
+                }
+            }
+        }
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+
+        for (int i=0 ; i<Math.min(a.length, b.length) ; i++) {
+
+            int cmp = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+}
@@ -0,0 +1,226 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Level-synchronous parallel breadth-first expansion of many seed nodes at once.
+ *
+ * All seeds start in the first frontier. Each frontier is split among the fork/join workers, and the workers claim
+ * newly reached nodes in a shared atomic bitset, so every node is expanded at most once whatever the number of seeds
+ * reaching it. The bitset is indexed by node slot (or by position in the node list for graphs without slots), so its
+ * size only depends on the number of nodes. Neighbours are read through the DirectedGraph visitor methods, which
+ * must support concurrent reads (IntGraph and FrozenIntGraph do as long as they are not modified).
+ */
+public final class MultiSourceTraversal {
+
+    /** frontiers smaller than this are expanded by a single task */
+    static final int SEQUENTIAL_THRESHOLD = 512;
+
+    private final DirectedGraph graph;
+    private final boolean upward;
+    private final int maxDepth;
+    private final IntUnaryOperator bitIndexer;
+    // nodes added to the result
+    private final AtomicBitSet reported;
+    // nodes expanded (seeds included)
+    private final AtomicBitSet expanded;
+
+    private MultiSourceTraversal(DirectedGraph graph, boolean upward, int maxDepth) {
+
+        this.graph = graph;
+        this.upward = upward;
+        this.maxDepth = maxDepth;
+
+        int indexCount = GraphTraversal.countBitIndices(graph);
+
+        if (indexCount != -1) {
+            this.bitIndexer = GraphTraversal.bitIndexerOf(graph);
+        }
+        else {
+            int[] nodes = graph.getNodes();
+
+            this.bitIndexer = GraphTraversal.positionIndexerOf(graph, nodes);
+            indexCount = nodes.length;
+        }
+
+        this.reported = new AtomicBitSet(indexCount);
+        this.expanded = new AtomicBitSet(indexCount);
+    }
+
+    /**
+     * Compute the union of the descendants of the given seeds with the common fork/join pool
+     * @param maxDepth the maximum distance from the seeds (0 means no limit)
+     */
+    public static int[] getDescendants(DirectedGraph graph, int[] seeds, int maxDepth) {
+
+        return getDescendants(graph, seeds, maxDepth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the union of the descendants of the given seeds
+     * @param maxDepth the maximum distance from the seeds (0 means no limit)
+     * @param pool the pool running the expansion
+     */
+    public static int[] getDescendants(DirectedGraph graph, int[] seeds, int maxDepth, ForkJoinPool pool) {
+
+        return new MultiSourceTraversal(graph, false, maxDepth).expand(seeds, pool);
+    }
+
+    /**
+     * Compute the union of the ancestors of the given seeds with the common fork/join pool
+     * @param maxDepth the maximum distance from the seeds (0 means no limit)
+     */
+    public static int[] getAncestors(DirectedGraph graph, int[] seeds, int maxDepth) {
+
+        return getAncestors(graph, seeds, maxDepth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the union of the ancestors of the given seeds
+     * @param maxDepth the maximum distance from the seeds (0 means no limit)
+     * @param pool the pool running the expansion
+     */
+    public static int[] getAncestors(DirectedGraph graph, int[] seeds, int maxDepth, ForkJoinPool pool) {
+
+        return new MultiSourceTraversal(graph, true, maxDepth).expand(seeds, pool);
+    }
+
+    private int[] expand(int[] seeds, ForkJoinPool pool) {
+
+        TIntArrayList frontier = new TIntArrayList(seeds.length);
+
+        for (int seed : seeds) {
+
+            if (graph.containsNode(seed) && expanded.set(bitIndexer.applyAsInt(seed))) {
+                frontier.add(seed);
+            }
+        }
+
+        TIntArrayList result = new TIntArrayList();
+
+        for (int depth=0 ; !frontier.isEmpty() && (maxDepth == 0 || depth < maxDepth) ; depth++) {
+
+            int[] nodes = frontier.toArray();
+
+            Level level = (nodes.length < SEQUENTIAL_THRESHOLD) ?
+                    new ExpandTask(nodes, 0, nodes.length).compute() : pool.invoke(new ExpandTask(nodes, 0, nodes.length));
+
+            result.addAll(level.reported);
+            frontier = level.next;
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * The nodes reported and to expand found by a task
+     */
+    private static class Level {
+
+        private final TIntArrayList reported = new TIntArrayList();
+        private final TIntArrayList next = new TIntArrayList();
+
+        private Level merge(Level other) {
+
+            reported.addAll(other.reported);
+            next.addAll(other.next);
+
+            return this;
+        }
+    }
+
+    private class ExpandTask extends RecursiveTask<Level> {
+
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+
+        private ExpandTask(int[] frontier, int from, int to) {
+
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Level compute() {
+
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+
+                Level level = new Level();
+
+                for (int i=from ; i<to ; i++) {
+
+                    if (upward) {
+                        graph.forEachPredecessor(frontier[i], node -> visit(node, level));
+                    }
+                    else {
+                        graph.forEachSuccessor(frontier[i], node -> visit(node, level));
+                    }
+                }
+                return level;
+            }
+
+            int mid = (from + to) >>> 1;
+
+            ExpandTask left = new ExpandTask(frontier, from, mid);
+            left.fork();
+
+            Level right = new ExpandTask(frontier, mid, to).compute();
+
+            return left.join().merge(right);
+        }
+
+        private boolean visit(int node, Level level) {
+
+            int index = bitIndexer.applyAsInt(node);
+
+            if (reported.set(index)) {
+                level.reported.add(node);
+            }
+            if (expanded.set(index)) {
+                level.next.add(node);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A fixed size bitset supporting concurrent updates
+     */
+    private static class AtomicBitSet {
+
+        private final AtomicLongArray words;
+
+        private AtomicBitSet(int size) {
+
+            words = new AtomicLongArray((size + 63) >>> 6);
+        }
+
+        /**
+         * @return true if the bit was not already set
+         */
+        private boolean set(int index) {
+
+            int wordIndex = index >>> 6;
+            long mask = 1L << index;
+
+            while (true) {
+
+                long word = words.get(wordIndex);
+
+                if ((word & mask) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(wordIndex, word, word | mask)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar store of node metadata indexed by node slot.
+ *
+ * Each distinct value is stored once in a dictionary and encoded by its index. Each key has its own column holding
+ * the value code+1 of each slot (0 if the slot has no value for this key). As a value can only be associated with
+ * a single node, the dictionary also records the slot owning each value, which gives the reverse index of all keys.
+ */
+final class NodeMetadataStore {
+
+    private final List<String> values;
+    private final TObjectIntMap<String> codes;
+    // the slot associated with each value code
+    private final TIntArrayList owners;
+    private final Map<String, int[]> columns;
+
+    NodeMetadataStore() {
+
+        this.values = new ArrayList<>();
+        this.codes = new TObjectIntHashMap<>(16, 0.5f, -1);
+        this.owners = new TIntArrayList();
+        this.columns = new LinkedHashMap<>();
+    }
+
+    /**
+     * Copy the metadata of the first slots of another store
+     */
+    NodeMetadataStore(NodeMetadataStore other, int slotCount) {
+
+        this.values = new ArrayList<>(other.values);
+        this.codes = new TObjectIntHashMap<>(Math.max(16, 2 * other.codes.size()), 0.5f, -1);
+        this.codes.putAll(other.codes);
+        this.owners = new TIntArrayList(other.owners);
+        this.columns = new LinkedHashMap<>();
+
+        other.columns.forEach((key, column) -> columns.put(key, Arrays.copyOf(column, slotCount)));
+    }
+
+    /**
+     * @return the value of the given key at the given slot or null if none
+     */
+    String get(int slot, String key) {
+
+        int[] column = columns.get(key);
+
+        if (column == null || slot < 0 || slot >= column.length || column[slot] == 0) {
+            return null;
+        }
+        return values.get(column[slot]-1);
+    }
+
+    /**
+     * Associate a value with the key of the given slot (existing value and owner are not checked)
+     */
+    void put(int slot, String key, String value) {
+
+        int code = codes.get(value);
+
+        if (code == -1) {
+
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+            owners.add(slot);
+        }
+
+        int[] column = columns.get(key);
+
+        if (column == null || slot >= column.length) {
+
+            column = (column == null) ? new int[Math.max(16, slot+1)] : Arrays.copyOf(column, Math.max(column.length * 2, slot+1));
+            columns.put(key, column);
+        }
+        column[slot] = code+1;
+    }
+
+    /**
+     * @return the slot associated with the given value whatever the key or -1 if not found
+     */
+    int getSlot(String value) {
+
+        int code = codes.get(value);
+
+        return (code == -1) ? -1 : owners.getQuick(code);
+    }
+
+    /**
+     * @return the slot associated with the given value of the given key or -1 if not found
+     */
+    int getSlot(String key, String value) {
+
+        int code = codes.get(value);
+
+        if (code == -1) {
+            return -1;
+        }
+
+        int slot = owners.getQuick(code);
+        int[] column = columns.get(key);
+
+        return (column != null && slot < column.length && column[slot] == code+1) ? slot : -1;
+    }
+
+    /**
+     * @return the metadata keys in insertion order
+     */
+    String[] getKeys() {
+
+        return columns.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Write the metadata of the first slots
+     */
+    void write(ObjectOutput out, int slotCount) throws IOException {
+
+        out.writeInt(values.size());
+        for (int code=0 ; code<values.size() ; code++) {
+            out.writeObject(values.get(code));
+            out.writeInt(owners.getQuick(code));
+        }
+
+        out.writeInt(columns.size());
+        for (Map.Entry<String, int[]> column : columns.entrySet()) {
+
+            out.writeObject(column.getKey());
+            for (int slot=0 ; slot<slotCount ; slot++) {
+                out.writeInt((slot < column.getValue().length) ? column.getValue()[slot] : 0);
+            }
+        }
+    }
+
+    /**
+     * Read the metadata of the given number of slots written by {@link #write(ObjectOutput, int)}
+     */
+    static NodeMetadataStore read(ObjectInput in, int slotCount) throws IOException, ClassNotFoundException {
+
+        NodeMetadataStore store = new NodeMetadataStore();
+
+        int valueCount = in.readInt();
+        for (int code=0 ; code<valueCount ; code++) {
+
+            String value = (String) in.readObject();
+
+            store.values.add(value);
+            store.codes.put(value, code);
+            store.owners.add(in.readInt());
+        }
+
+        int keyCount = in.readInt();
+        for (int k=0 ; k<keyCount ; k++) {
+
+            String key = (String) in.readObject();
+            int[] column = new int[slotCount];
+
+            for (int slot=0 ; slot<slotCount ; slot++) {
+                column[slot] = in.readInt();
+            }
+            store.columns.put(key, column);
+        }
+        return store;
+    }
+}
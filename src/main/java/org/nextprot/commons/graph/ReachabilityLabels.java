@@ -0,0 +1,269 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.Random;
+
+/**
+ * A reachability index for directed acyclic graphs based on GRAIL multi-interval labeling
+ * (Yildirim, Chaoji and Zaki, "GRAIL: Scalable Reachability Index for Large Graphs", VLDB 2010).
+ *
+ * Each node gets one interval [low, rank] per randomized depth-first traversal, where rank is the post-order rank
+ * of the node and low the smallest rank among its descendants. If u reaches v then the intervals of v are nested in
+ * the intervals of u, so most negative queries are answered by comparing k intervals. The spanning tree of the first
+ * traversal gives an exact positive answer when v lies in the subtree of u. The remaining queries fall back to a
+ * depth-first search pruned by the same intervals.
+ *
+ * The index needs (2k+1) ints per node plus the node slots. The graph is frozen while labeling, the frozen copy is then
+ * dropped and the fallback searches walk the indexed graph, which must not be modified while the labels are used.
+ */
+public final class ReachabilityLabels {
+
+    static final int DEFAULT_TRAVERSAL_COUNT = 3;
+
+    private final DirectedGraph graph;
+    // the slots of the frozen copy labeled
+    private final SlotIndex slots;
+    private final int traversalCount;
+    // per-traversal intervals stored at [traversal * nodeCount + slot]
+    private final int[] lows;
+    private final int[] ranks;
+    // lowest rank of the first traversal spanning subtree of each node
+    private final int[] treeLows;
+
+    private ReachabilityLabels(DirectedGraph graph, FrozenIntGraph frozen, int[] order, int traversalCount, long seed) {
+
+        this.graph = graph;
+        this.slots = SlotIndex.of(graph, frozen);
+        this.traversalCount = traversalCount;
+
+        int nodeCount = frozen.countNodes();
+
+        this.lows = new int[traversalCount * nodeCount];
+        this.ranks = new int[traversalCount * nodeCount];
+        this.treeLows = new int[nodeCount];
+
+        Random random = new Random(seed);
+        TIntArrayList roots = new TIntArrayList();
+
+        // the topological order starts with all roots
+        for (int slot : order) {
+            if (frozen.inOffsets()[slot+1] > frozen.inOffsets()[slot]) {
+                break;
+            }
+            roots.add(slot);
+        }
+
+        for (int traversal=0 ; traversal<traversalCount ; traversal++) {
+
+            if (traversal > 0) {
+                roots.shuffle(random);
+            }
+            label(frozen, traversal, roots, random);
+        }
+    }
+
+    /**
+     * Build the reachability labels of the given graph with the default number of traversals
+     * @param graph a directed acyclic graph
+     * @throws DirectedGraph.CycleDetectedException if the graph contains a cycle
+     */
+    public static ReachabilityLabels build(DirectedGraph graph) throws DirectedGraph.CycleDetectedException {
+
+        return build(graph, DEFAULT_TRAVERSAL_COUNT, 0);
+    }
+
+    /**
+     * Build the reachability labels of the given graph
+     * @param graph a directed acyclic graph
+     * @param traversalCount the number of randomized traversals (intervals per node)
+     * @param seed the seed of the random traversal orders
+     * @throws DirectedGraph.CycleDetectedException if the graph contains a cycle
+     */
+    public static ReachabilityLabels build(DirectedGraph graph, int traversalCount, long seed) throws DirectedGraph.CycleDetectedException {
+
+        if (traversalCount < 1) {
+            throw new IllegalArgumentException("at least one traversal is needed, found "+traversalCount);
+        }
+
+        FrozenIntGraph frozen = FrozenIntGraph.of(graph);
+
+        return new ReachabilityLabels(graph, frozen, frozen.calcTopologicalSlotOrder(), traversalCount, seed);
+    }
+
+    /**
+     * Iterative randomized depth-first traversal assigning post-order ranks and low values
+     */
+    private void label(FrozenIntGraph frozen, int traversal, TIntArrayList roots, Random random) {
+
+        int nodeCount = frozen.countNodes();
+        int base = traversal * nodeCount;
+        int[] offsets = frozen.outOffsets();
+        int[] targets = frozen.outTargets();
+
+        boolean[] visited = new boolean[nodeCount];
+        // stack of slots with the index of the next child to visit and the randomized first child
+        int[] stack = new int[nodeCount];
+        int[] nextChild = new int[nodeCount];
+        int[] firstChild = new int[nodeCount];
+        int rank = 1;
+
+        for (int r=0 ; r<roots.size() ; r++) {
+
+            int root = roots.getQuick(r);
+            int top = 0;
+
+            stack[0] = root;
+            nextChild[0] = 0;
+            firstChild[0] = randomOffset(root, offsets, random);
+            visited[root] = true;
+            markDiscovery(traversal, root, rank);
+
+            while (top >= 0) {
+
+                int slot = stack[top];
+                int degree = offsets[slot+1]-offsets[slot];
+
+                if (nextChild[top] < degree) {
+
+                    int child = targets[offsets[slot] + (firstChild[top] + nextChild[top]++) % degree];
+
+                    if (!visited[child]) {
+
+                        visited[child] = true;
+                        top++;
+                        stack[top] = child;
+                        nextChild[top] = 0;
+                        firstChild[top] = randomOffset(child, offsets, random);
+                        markDiscovery(traversal, child, rank);
+                    }
+                }
+                else {
+                    // post-visit: all descendants are labeled in a DAG
+                    int low = rank;
+
+                    for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+                        low = Math.min(low, lows[base+targets[i]]);
+                    }
+
+                    lows[base+slot] = low;
+                    ranks[base+slot] = rank++;
+                    top--;
+                }
+            }
+        }
+    }
+
+    /**
+     * The nodes of a spanning subtree get contiguous ranks starting at the rank available when its root is discovered
+     */
+    private void markDiscovery(int traversal, int slot, int rank) {
+
+        if (traversal == 0) {
+            treeLows[slot] = rank;
+        }
+    }
+
+    private static int randomOffset(int slot, int[] offsets, Random random) {
+
+        int degree = offsets[slot+1]-offsets[slot];
+
+        return (degree > 1) ? random.nextInt(degree) : 0;
+    }
+
+    /**
+     * @return true if queryDescendant is a descendant of queryAncestor
+     */
+    public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
+
+        int ancestor = slots.slotOf(queryAncestor);
+        int descendant = slots.slotOf(queryDescendant);
+
+        if (ancestor == -1 || descendant == -1 || ancestor == descendant) {
+            return false;
+        }
+
+        if (!contains(ancestor, descendant)) {
+            return false;
+        }
+
+        if (inSpanningSubtree(ancestor, descendant)) {
+            return true;
+        }
+
+        return searchDescendant(queryAncestor, descendant);
+    }
+
+    /**
+     * @return true if all intervals of v are nested in the intervals of u
+     */
+    private boolean contains(int u, int v) {
+
+        int nodeCount = slots.countNodes();
+
+        for (int base=0 ; base<traversalCount*nodeCount ; base+=nodeCount) {
+
+            if (lows[base+v] < lows[base+u] || ranks[base+v] > ranks[base+u]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean inSpanningSubtree(int u, int v) {
+
+        return treeLows[u] <= ranks[v] && ranks[v] <= ranks[u];
+    }
+
+    private boolean searchDescendant(int ancestorNode, int descendant) {
+
+        TIntSet visited = new TIntHashSet();
+        TIntArrayList stack = new TIntArrayList();
+
+        stack.add(ancestorNode);
+
+        while (!stack.isEmpty()) {
+
+            int node = stack.removeAt(stack.size()-1);
+
+            // the visitor stops as soon as the descendant is found
+            boolean found = !graph.forEachSuccessor(node, child -> {
+
+                int slot = slots.slotOf(child);
+
+                if (slot == descendant || (slot != -1 && inSpanningSubtree(slot, descendant))) {
+                    return false;
+                }
+
+                if (slot != -1 && contains(slot, descendant) && visited.add(slot)) {
+                    stack.add(child);
+                }
+                return true;
+            });
+
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of intervals per node
+     */
+    public int getTraversalCount() {
+
+        return traversalCount;
+    }
+
+    /**
+     * @return the number of bytes used by the labels and the node slots (the graph and the slot index shared with an
+     * IntGraph or a FrozenIntGraph are not counted)
+     */
+    public long getMemoryUsage() {
+
+        return (long) (lows.length + ranks.length + treeLows.length) * Integer.BYTES + slots.getMemoryUsage();
+    }
+}
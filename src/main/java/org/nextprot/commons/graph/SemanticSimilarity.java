@@ -0,0 +1,446 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lowest common ancestors and information content based similarities between the nodes of a directed acyclic graph
+ * (typically the terms of a controlled vocabulary).
+ *
+ * The ancestors of each node (the node included) are precomputed once, on a frozen copy of the graph dropped after
+ * construction, as sorted arrays of slots, along with the node depths (longest path from a source) and information
+ * contents. A pairwise query merges two arrays without allocating, so many queries can run concurrently on the same
+ * instance (see {@link #calcSimilarityMatrix(int[], int[], Measure)}).
+ *
+ * The information content of a node is either intrinsic (Seco et al. 2004: 1 - log(descendants+1)/log(V)) or computed
+ * from annotation counts (-log p where p is the frequency of the node or of one of its descendants in the corpus).
+ */
+public final class SemanticSimilarity {
+
+    /** rows of the similarity matrix computed by a single task */
+    static final int ROWS_PER_TASK = 16;
+
+    public enum Measure {
+
+        /** information content of the most informative common ancestor */
+        RESNIK,
+        /** Resnik similarity normalized by the information content of both nodes */
+        LIN
+    }
+
+    // the slots of the frozen copy indexed
+    private final SlotIndex slots;
+    // sorted ancestor slots of each slot, the slot itself included
+    private final int[][] ancestors;
+    private final int[] depths;
+    private final double[] informationContents;
+
+    private SemanticSimilarity(SlotIndex slots, int[][] ancestors, int[] depths, double[] informationContents) {
+
+        this.slots = slots;
+        this.ancestors = ancestors;
+        this.depths = depths;
+        this.informationContents = informationContents;
+    }
+
+    /**
+     * Build the similarity engine of the given graph with intrinsic information contents
+     * @param graph a directed acyclic graph
+     * @throws DirectedGraph.CycleDetectedException if the graph contains a cycle
+     */
+    public static SemanticSimilarity build(DirectedGraph graph) throws DirectedGraph.CycleDetectedException {
+
+        return build(graph, null);
+    }
+
+    /**
+     * Build the similarity engine of the given graph with information contents computed from annotation counts
+     * @param graph a directed acyclic graph
+     * @param annotationCounts the number of annotations of each node (missing nodes have none) or null to compute
+     *                         intrinsic information contents
+     * @throws DirectedGraph.CycleDetectedException if the graph contains a cycle
+     */
+    public static SemanticSimilarity build(DirectedGraph graph, TIntIntMap annotationCounts) throws DirectedGraph.CycleDetectedException {
+
+        FrozenIntGraph frozen = FrozenIntGraph.of(graph);
+        TransitiveClosure closure = TransitiveClosure.build(frozen, TransitiveClosure.Representation.SORTED_ARRAYS);
+
+        int nodeCount = frozen.countNodes();
+        int[][] ancestors = new int[nodeCount][];
+        int[][] descendants = new int[nodeCount][];
+
+        for (int slot=0 ; slot<nodeCount ; slot++) {
+
+            ancestors[slot] = insertSorted(closure.getAncestorSlots(slot), slot);
+            descendants[slot] = closure.getDescendantSlots(slot);
+        }
+
+        double[] informationContents = (annotationCounts == null) ?
+                calcIntrinsicInformationContents(descendants) :
+                calcCorpusInformationContents(frozen, descendants, annotationCounts);
+
+        // only the node slots of the frozen copy are kept
+        return new SemanticSimilarity(SlotIndex.of(graph, frozen), ancestors, calcDepths(frozen), informationContents);
+    }
+
+    private static int[] insertSorted(int[] slots, int slot) {
+
+        int[] inserted = new int[slots.length+1];
+        int position = -Arrays.binarySearch(slots, slot)-1;
+
+        System.arraycopy(slots, 0, inserted, 0, position);
+        inserted[position] = slot;
+        System.arraycopy(slots, position, inserted, position+1, slots.length-position);
+
+        return inserted;
+    }
+
+    private static int[] calcDepths(FrozenIntGraph graph) throws DirectedGraph.CycleDetectedException {
+
+        int[] depths = new int[graph.countNodes()];
+        int[] offsets = graph.inOffsets();
+        int[] sources = graph.inSources();
+
+        for (int slot : graph.calcTopologicalSlotOrder()) {
+
+            for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+                depths[slot] = Math.max(depths[slot], depths[sources[i]]+1);
+            }
+        }
+        return depths;
+    }
+
+    private static double[] calcIntrinsicInformationContents(int[][] descendants) {
+
+        double[] informationContents = new double[descendants.length];
+
+        if (descendants.length > 1) {
+
+            double logNodeCount = Math.log(descendants.length);
+
+            for (int slot=0 ; slot<descendants.length ; slot++) {
+                informationContents[slot] = 1 - Math.log(descendants[slot].length+1) / logNodeCount;
+            }
+        }
+        return informationContents;
+    }
+
+    /**
+     * Nodes with no annotation in their subgraph get the information content of a single annotation
+     */
+    private static double[] calcCorpusInformationContents(FrozenIntGraph graph, int[][] descendants, TIntIntMap annotationCounts) {
+
+        long[] counts = new long[descendants.length];
+        long total = 0;
+
+        for (int slot=0 ; slot<descendants.length ; slot++) {
+
+            int count = annotationCounts.containsKey(graph.nodeAt(slot)) ? annotationCounts.get(graph.nodeAt(slot)) : 0;
+
+            if (count < 0) {
+                throw new IllegalArgumentException("negative annotation count "+count+" for node "+graph.nodeAt(slot));
+            }
+            counts[slot] = count;
+            total += count;
+        }
+
+        double[] informationContents = new double[descendants.length];
+
+        if (total == 0) {
+            return informationContents;
+        }
+
+        for (int slot=0 ; slot<descendants.length ; slot++) {
+
+            long cumulativeCount = counts[slot];
+
+            for (int descendant : descendants[slot]) {
+                cumulativeCount += counts[descendant];
+            }
+
+            informationContents[slot] = -Math.log((double) Math.max(cumulativeCount, 1) / total);
+        }
+        return informationContents;
+    }
+
+    /**
+     * @return the length of the longest path from a source to the given node or -1 if not found
+     */
+    public int getDepth(int node) {
+
+        int slot = slots.slotOf(node);
+
+        return (slot == -1) ? -1 : depths[slot];
+    }
+
+    /**
+     * @return the information content of the given node or 0 if not found
+     */
+    public double getInformationContent(int node) {
+
+        int slot = slots.slotOf(node);
+
+        return (slot == -1) ? 0 : informationContents[slot];
+    }
+
+    /**
+     * Get the lowest common ancestors of two nodes: the common ancestors (the nodes themselves included) that are not
+     * ancestors of another common ancestor
+     * @return the lowest common ancestors sorted by decreasing depth (empty if the nodes share no ancestor)
+     */
+    public int[] getLowestCommonAncestors(int node1, int node2) {
+
+        int slot1 = slots.slotOf(node1);
+        int slot2 = slots.slotOf(node2);
+
+        if (slot1 == -1 || slot2 == -1) {
+            return new int[0];
+        }
+
+        int[] common = intersect(ancestors[slot1], ancestors[slot2]);
+
+        // a descendant is always deeper than its ancestors: candidates are sorted by decreasing depth (then increasing
+        // slot) as longs packing the complement of the depth above the slot
+        long[] candidates = new long[common.length];
+        for (int i=0 ; i<common.length ; i++) {
+            candidates[i] = ((long) (Integer.MAX_VALUE - depths[common[i]]) << 32) | common[i];
+        }
+        Arrays.sort(candidates);
+
+        TIntArrayList lowest = new TIntArrayList();
+
+        for (long packed : candidates) {
+
+            int candidate = (int) packed;
+
+            if (!isAncestorOfAny(candidate, lowest)) {
+                lowest.add(candidate);
+            }
+        }
+
+        for (int i=0 ; i<lowest.size() ; i++) {
+            lowest.setQuick(i, slots.nodeAt(lowest.getQuick(i)));
+        }
+        return lowest.toArray();
+    }
+
+    private boolean isAncestorOfAny(int slot, TIntArrayList slots) {
+
+        for (int i=0 ; i<slots.size() ; i++) {
+
+            if (Arrays.binarySearch(ancestors[slots.getQuick(i)], slot) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] intersect(int[] slots1, int[] slots2) {
+
+        TIntArrayList common = new TIntArrayList(Math.min(slots1.length, slots2.length));
+
+        for (int i=0, j=0 ; i<slots1.length && j<slots2.length ; ) {
+
+            if (slots1[i] < slots2[j]) {
+                i++;
+            }
+            else if (slots1[i] > slots2[j]) {
+                j++;
+            }
+            else {
+                common.add(slots1[i]);
+                i++;
+                j++;
+            }
+        }
+        return common.toArray();
+    }
+
+    /**
+     * @return the common ancestor of highest information content (the deepest one on ties) or -1 if none
+     */
+    public int getMostInformativeCommonAncestor(int node1, int node2) {
+
+        int slot1 = slots.slotOf(node1);
+        int slot2 = slots.slotOf(node2);
+
+        if (slot1 == -1 || slot2 == -1) {
+            return -1;
+        }
+
+        int mica = findMostInformativeCommonAncestorSlot(slot1, slot2);
+
+        return (mica == -1) ? -1 : slots.nodeAt(mica);
+    }
+
+    private int findMostInformativeCommonAncestorSlot(int slot1, int slot2) {
+
+        int[] ancestors1 = ancestors[slot1];
+        int[] ancestors2 = ancestors[slot2];
+        int mica = -1;
+
+        for (int i=0, j=0 ; i<ancestors1.length && j<ancestors2.length ; ) {
+
+            if (ancestors1[i] < ancestors2[j]) {
+                i++;
+            }
+            else if (ancestors1[i] > ancestors2[j]) {
+                j++;
+            }
+            else {
+                int slot = ancestors1[i];
+
+                if (mica == -1 || informationContents[slot] > informationContents[mica] ||
+                        (informationContents[slot] == informationContents[mica] && depths[slot] > depths[mica])) {
+                    mica = slot;
+                }
+                i++;
+                j++;
+            }
+        }
+        return mica;
+    }
+
+    /**
+     * @return the information content of the most informative common ancestor or 0 if none
+     */
+    public double calcResnikSimilarity(int node1, int node2) {
+
+        int slot1 = slots.slotOf(node1);
+        int slot2 = slots.slotOf(node2);
+
+        return (slot1 == -1 || slot2 == -1) ? 0 : calcSimilarity(slot1, slot2, Measure.RESNIK);
+    }
+
+    /**
+     * @return 2*IC(mica)/(IC(node1)+IC(node2)) in [0, 1] or 0 if none
+     */
+    public double calcLinSimilarity(int node1, int node2) {
+
+        int slot1 = slots.slotOf(node1);
+        int slot2 = slots.slotOf(node2);
+
+        return (slot1 == -1 || slot2 == -1) ? 0 : calcSimilarity(slot1, slot2, Measure.LIN);
+    }
+
+    private double calcSimilarity(int slot1, int slot2, Measure measure) {
+
+        int mica = findMostInformativeCommonAncestorSlot(slot1, slot2);
+
+        if (mica == -1) {
+            return 0;
+        }
+
+        if (measure == Measure.RESNIK) {
+            return informationContents[mica];
+        }
+
+        double sum = informationContents[slot1] + informationContents[slot2];
+
+        if (sum == 0) {
+            return (slot1 == slot2) ? 1 : 0;
+        }
+        return 2 * informationContents[mica] / sum;
+    }
+
+    /**
+     * Compute the similarities between two lists of nodes with the common fork/join pool
+     * @return the matrix of similarities between nodes1[i] and nodes2[j] at [i][j]
+     */
+    public double[][] calcSimilarityMatrix(int[] nodes1, int[] nodes2, Measure measure) {
+
+        return calcSimilarityMatrix(nodes1, nodes2, measure, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the similarities between two lists of nodes
+     * @param pool the pool running the computation
+     * @return the matrix of similarities between nodes1[i] and nodes2[j] at [i][j]
+     */
+    public double[][] calcSimilarityMatrix(int[] nodes1, int[] nodes2, Measure measure, ForkJoinPool pool) {
+
+        double[][] matrix = new double[nodes1.length][nodes2.length];
+
+        int[] slots1 = toSlots(nodes1);
+        int[] slots2 = toSlots(nodes2);
+
+        MatrixTask task = new MatrixTask(slots1, slots2, measure, matrix, 0, nodes1.length);
+
+        if (nodes1.length <= ROWS_PER_TASK) {
+            task.compute();
+        }
+        else {
+            pool.invoke(task);
+        }
+        return matrix;
+    }
+
+    private int[] toSlots(int[] nodes) {
+
+        int[] nodeSlots = new int[nodes.length];
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            nodeSlots[i] = slots.slotOf(nodes[i]);
+        }
+        return nodeSlots;
+    }
+
+    private class MatrixTask extends RecursiveAction {
+
+        private final int[] slots1;
+        private final int[] slots2;
+        private final Measure measure;
+        private final double[][] matrix;
+        private final int from;
+        private final int to;
+
+        private MatrixTask(int[] slots1, int[] slots2, Measure measure, double[][] matrix, int from, int to) {
+
+            this.slots1 = slots1;
+            this.slots2 = slots2;
+            this.measure = measure;
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= ROWS_PER_TASK) {
+
+                for (int i=from ; i<to ; i++) {
+
+                    if (slots1[i] == -1) {
+                        continue;
+                    }
+
+                    for (int j=0 ; j<slots2.length ; j++) {
+
+                        if (slots2[j] != -1) {
+                            matrix[i][j] = calcSimilarity(slots1[i], slots2[j], measure);
+                        }
+                    }
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+
+            invokeAll(new MatrixTask(slots1, slots2, measure, matrix, from, mid),
+                    new MatrixTask(slots1, slots2, measure, matrix, mid, to));
+        }
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int countNodes() {
+
+        return slots.countNodes();
+    }
+}
@@ -0,0 +1,84 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The slots of the nodes of a graph copied with {@link FrozenIntGraph#of(DirectedGraph)}, kept by the indices built
+ * from the frozen copy once the copy is dropped.
+ *
+ * IntGraph and FrozenIntGraph already map their nodes to the same slots as their frozen copy: their own index is
+ * shared. Other graphs get a hash index of their nodes.
+ */
+final class SlotIndex {
+
+    // the node of each slot
+    private final int[] nodes;
+    // the slot of each node or -1, backed by slotsByNode unless shared with the graph
+    private final IntUnaryOperator slotOf;
+    private final TIntIntHashMap slotsByNode;
+
+    private SlotIndex(int[] nodes, IntUnaryOperator slotOf, TIntIntHashMap slotsByNode) {
+
+        this.nodes = nodes;
+        this.slotOf = slotOf;
+        this.slotsByNode = slotsByNode;
+    }
+
+    /**
+     * @param graph the graph
+     * @param frozen the frozen copy of graph
+     * @return the slots of the frozen copy
+     */
+    static SlotIndex of(DirectedGraph graph, FrozenIntGraph frozen) {
+
+        int[] nodes = frozen.getNodes();
+
+        if (graph instanceof IntGraph || graph instanceof FrozenIntGraph) {
+            return new SlotIndex(nodes, GraphTraversal.bitIndexerOf(graph), null);
+        }
+
+        TIntIntHashMap slotsByNode = new TIntIntHashMap(nodes.length, 0.5f, -1, -1);
+
+        for (int slot=0 ; slot<nodes.length ; slot++) {
+            slotsByNode.put(nodes[slot], slot);
+        }
+        return new SlotIndex(nodes, slotsByNode::get, slotsByNode);
+    }
+
+    /**
+     * @return the slot of the given node or -1 if not indexed
+     */
+    int slotOf(int node) {
+
+        int slot = slotOf.applyAsInt(node);
+
+        // nodes added to a shared graph after indexing are not indexed
+        return (slot < nodes.length) ? slot : -1;
+    }
+
+    int nodeAt(int slot) {
+
+        return nodes[slot];
+    }
+
+    int countNodes() {
+
+        return nodes.length;
+    }
+
+    /**
+     * @return the approximate number of bytes used by this index (a shared graph index is not counted)
+     */
+    long getMemoryUsage() {
+
+        long bytes = 16 + (long) nodes.length * Integer.BYTES;
+
+        // keys, values and states of the hash table
+        if (slotsByNode != null) {
+            bytes += (long) slotsByNode.capacity() * (2 * Integer.BYTES + 1);
+        }
+        return bytes;
+    }
+}
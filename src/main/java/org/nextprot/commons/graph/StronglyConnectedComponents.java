@@ -0,0 +1,273 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The strongly connected components of a directed graph, computed in O(V+E) with an iterative Tarjan's algorithm.
+ *
+ * Components are numbered in topological order of the condensation: an edge always goes from a component to itself
+ * or to a component with a greater id. A component is cyclic if it has more than one node or a self-loop, the graph
+ * is acyclic if it has no cyclic component.
+ *
+ * The condensation (see {@link #calcCondensation()}) is acyclic even when the graph is not, closure and reachability
+ * indexes can then be built over it and queried through {@link #getComponent(int)}.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class StronglyConnectedComponents {
+
+    private final DirectedGraph graph;
+    private final TIntIntMap componentsByNode;
+    // nodes grouped by component, component c is componentNodes[componentOffsets[c]..componentOffsets[c+1])
+    private final int[] componentNodes;
+    private final int[] componentOffsets;
+    private final int[] cyclicComponents;
+
+    private StronglyConnectedComponents(DirectedGraph graph, int[] nodes, int[] components, int componentCount,
+                                        boolean[] selfLoops) {
+
+        this.graph = graph;
+        this.componentsByNode = new TIntIntHashMap(nodes.length, 0.5f, -1, -1);
+        this.componentOffsets = new int[componentCount+1];
+        this.componentNodes = new int[nodes.length];
+
+        // counting sort of the nodes by component
+        for (int i=0 ; i<nodes.length ; i++) {
+            componentsByNode.put(nodes[i], components[i]);
+            componentOffsets[components[i]+1]++;
+        }
+        for (int component=1 ; component<componentOffsets.length ; component++) {
+            componentOffsets[component] += componentOffsets[component-1];
+        }
+
+        int[] next = componentOffsets.clone();
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            componentNodes[next[components[i]]++] = nodes[i];
+        }
+
+        TIntArrayList cyclic = new TIntArrayList();
+
+        for (int component=0 ; component<componentCount ; component++) {
+
+            if (componentOffsets[component+1] - componentOffsets[component] > 1 || selfLoops[component]) {
+                cyclic.add(component);
+            }
+        }
+        this.cyclicComponents = cyclic.toArray();
+    }
+
+    /**
+     * Compute the strongly connected components of the given graph
+     * @param graph a directed graph, possibly with cycles
+     * @return the components
+     */
+    public static StronglyConnectedComponents of(DirectedGraph graph) {
+
+        int[] nodes = graph.getNodes();
+        IntUnaryOperator indices = GraphTraversal.positionIndexerOf(graph, nodes);
+
+        // successors by node position, successors of i are targets[offsets[i]..offsets[i+1])
+        int[] offsets = new int[nodes.length+1];
+        TIntArrayList targets = new TIntArrayList(nodes.length);
+
+        for (int i=0 ; i<nodes.length ; i++) {
+
+            graph.forEachSuccessor(nodes[i], successor -> targets.add(indices.applyAsInt(successor)));
+            offsets[i+1] = targets.size();
+        }
+
+        int[] visitOrders = new int[nodes.length];
+        int[] lowLinks = new int[nodes.length];
+        int[] components = new int[nodes.length];
+        int[] edgePositions = new int[nodes.length];
+        boolean[] onStack = new boolean[nodes.length];
+        boolean[] selfLoops = new boolean[nodes.length];
+        int[] callStack = new int[nodes.length];
+        TIntArrayList stack = new TIntArrayList();
+        int visitCount = 0;
+        int componentCount = 0;
+
+        Arrays.fill(visitOrders, -1);
+
+        for (int root=0 ; root<nodes.length ; root++) {
+
+            if (visitOrders[root] != -1) {
+                continue;
+            }
+
+            int top = 0;
+
+            callStack[0] = root;
+            visitOrders[root] = lowLinks[root] = visitCount++;
+            edgePositions[root] = offsets[root];
+            stack.add(root);
+            onStack[root] = true;
+
+            while (top >= 0) {
+
+                int v = callStack[top];
+
+                if (edgePositions[v] < offsets[v+1]) {
+
+                    int w = targets.getQuick(edgePositions[v]++);
+
+                    if (visitOrders[w] == -1) {
+
+                        callStack[++top] = w;
+                        visitOrders[w] = lowLinks[w] = visitCount++;
+                        edgePositions[w] = offsets[w];
+                        stack.add(w);
+                        onStack[w] = true;
+                    }
+                    else if (onStack[w]) {
+                        lowLinks[v] = Math.min(lowLinks[v], visitOrders[w]);
+                    }
+                    continue;
+                }
+
+                // v is the root of a component: pop it
+                if (lowLinks[v] == visitOrders[v]) {
+
+                    int w;
+
+                    do {
+                        w = stack.removeAt(stack.size()-1);
+                        onStack[w] = false;
+                        components[w] = componentCount;
+                    } while (w != v);
+
+                    componentCount++;
+                }
+
+                if (--top >= 0) {
+                    int u = callStack[top];
+                    lowLinks[u] = Math.min(lowLinks[u], lowLinks[v]);
+                }
+            }
+        }
+
+        // Tarjan's algorithm completes components in reverse topological order
+        for (int i=0 ; i<nodes.length ; i++) {
+            components[i] = componentCount - 1 - components[i];
+        }
+
+        boolean[] componentSelfLoops = new boolean[componentCount];
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            for (int j=offsets[i] ; j<offsets[i+1] ; j++) {
+                if (targets.getQuick(j) == i) {
+                    componentSelfLoops[components[i]] = true;
+                }
+            }
+        }
+
+        return new StronglyConnectedComponents(graph, nodes, components, componentCount, componentSelfLoops);
+    }
+
+    /**
+     * @return the number of strongly connected components
+     */
+    public int countComponents() {
+
+        return componentOffsets.length - 1;
+    }
+
+    /**
+     * @return the component of the given node or -1 if not found
+     */
+    public int getComponent(int node) {
+
+        return componentsByNode.get(node);
+    }
+
+    /**
+     * @return the nodes of the given component
+     */
+    public int[] getComponentNodes(int component) {
+
+        return Arrays.copyOfRange(componentNodes, componentOffsets[component], componentOffsets[component+1]);
+    }
+
+    /**
+     * @return true if both nodes are found in the same component
+     */
+    public boolean isStronglyConnected(int node1, int node2) {
+
+        int component = getComponent(node1);
+
+        return component != -1 && component == getComponent(node2);
+    }
+
+    /**
+     * @return true if the graph has no cycle
+     */
+    public boolean isAcyclic() {
+
+        return cyclicComponents.length == 0;
+    }
+
+    /**
+     * @return the components with a cycle in increasing order
+     */
+    public int[] getCyclicComponents() {
+
+        return cyclicComponents.clone();
+    }
+
+    /**
+     * Describe each cycle group with the metadata of its nodes (ie "[GO:0000001, GO:0000002]")
+     * @param key the metadata key of the node labels (nodes without such metadata are described by their id)
+     * @return one description per cyclic component in increasing order
+     */
+    public List<String> describeCyclicComponents(String key) {
+
+        List<String> descriptions = new ArrayList<>(cyclicComponents.length);
+
+        for (int component : cyclicComponents) {
+
+            List<String> labels = new ArrayList<>();
+
+            for (int node : getComponentNodes(component)) {
+
+                String value = graph.getNodeMetadataValue(node, key);
+
+                labels.add((value != null) ? value : String.valueOf(node));
+            }
+            descriptions.add(labels.toString());
+        }
+        return descriptions;
+    }
+
+    /**
+     * Contract each component into a single node: the nodes of the condensation are the component ids and it has an
+     * edge between two components if the graph has at least one edge between their nodes
+     * @return the condensation, a directed acyclic graph
+     */
+    public IntGraph calcCondensation() {
+
+        IntGraphBuilder builder = new IntGraphBuilder("condensation of " + graph.getGraphLabel());
+
+        for (int component=0 ; component<countComponents() ; component++) {
+            builder.addNode(component);
+        }
+
+        for (int edge : graph.getEdges()) {
+
+            int tailComponent = getComponent(graph.getTailNode(edge));
+            int headComponent = getComponent(graph.getHeadNode(edge));
+
+            if (tailComponent != headComponent) {
+                builder.addEdge(tailComponent, headComponent);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,386 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A read-only view of the subgraph induced by a set of nodes of a parent graph.
+ *
+ * Nothing is copied: the member nodes are marked in a bitset (indexed by node slot for IntGraph and FrozenIntGraph)
+ * and every query is answered by the parent graph, skipping the edges leading outside the subgraph. Node and edge ids
+ * are the ones of the parent graph. The parent graph must not be modified while the view is in use.
+ *
+ * Instances are created with {@link DirectedGraph#getSubgraphView(int...)}. All mutating operations throw
+ * UnsupportedOperationException.
+ */
+public final class SubgraphView implements DirectedGraph {
+
+    private final DirectedGraph graph;
+    private final IntUnaryOperator bitIndexer;
+    private final BitSet members = new BitSet();
+    private final int[] nodes;
+
+    /**
+     * @param graph the parent graph
+     * @param nodes the member nodes (duplicates and nodes not found in the parent graph are ignored)
+     */
+    SubgraphView(DirectedGraph graph, int... nodes) {
+
+        this.graph = graph;
+        this.bitIndexer = GraphTraversal.bitIndexerOf(graph);
+
+        TIntArrayList memberNodes = new TIntArrayList(nodes.length);
+
+        for (int node : nodes) {
+
+            if (graph.containsNode(node)) {
+
+                int bit = bitIndexer.applyAsInt(node);
+
+                if (!members.get(bit)) {
+                    members.set(bit);
+                    memberNodes.add(node);
+                }
+            }
+        }
+        this.nodes = memberNodes.toArray();
+    }
+
+    /**
+     * @return the graph filtered by this view
+     */
+    public DirectedGraph getParentGraph() {
+
+        return graph;
+    }
+
+    private boolean isMember(int node) {
+
+        int bit = bitIndexer.applyAsInt(node);
+
+        return bit >= 0 && members.get(bit);
+    }
+
+    @Override
+    public void setGraphLabel(String label) {
+
+        throw new UnsupportedOperationException("subgraph view cannot be modified");
+    }
+
+    @Override
+    public String getGraphLabel() {
+
+        return graph.getGraphLabel() + " (subgraph)";
+    }
+
+    @Override
+    public void addNode(int node) {
+
+        throw new UnsupportedOperationException("subgraph view cannot be modified");
+    }
+
+    @Override
+    public void addNodeMetadata(int node, String key, String value) {
+
+        throw new UnsupportedOperationException("subgraph view cannot be modified");
+    }
+
+    @Override
+    public String getNodeMetadataValue(int node, String key) {
+
+        return isMember(node) ? graph.getNodeMetadataValue(node, key) : null;
+    }
+
+    @Override
+    public int getNodeFromMetadata(String value) {
+
+        int node = graph.getNodeFromMetadata(value);
+
+        return isMember(node) ? node : -1;
+    }
+
+    @Override
+    public int getNodeFromMetadata(String key, String value) {
+
+        int node = graph.getNodeFromMetadata(key, value);
+
+        return isMember(node) ? node : -1;
+    }
+
+    @Override
+    public int addEdge(int tail, int head) {
+
+        throw new UnsupportedOperationException("subgraph view cannot be modified");
+    }
+
+    @Override
+    public void setEdgeLabel(int edge, String label) {
+
+        throw new UnsupportedOperationException("subgraph view cannot be modified");
+    }
+
+    @Override
+    public String getEdgeLabel(int edge) {
+
+        return containsEdge(edge) ? graph.getEdgeLabel(edge) : null;
+    }
+
+    @Override
+    public int[] getEdgesWithLabel(String label) {
+
+        TIntArrayList edges = new TIntArrayList();
+
+        for (int edge : graph.getEdgesWithLabel(label)) {
+
+            if (containsEdge(edge)) {
+                edges.add(edge);
+            }
+        }
+        return edges.toArray();
+    }
+
+    @Override
+    public int[] getNodes() {
+
+        return nodes.clone();
+    }
+
+    @Override
+    public int[] getEdges() {
+
+        return getOutEdges(nodes);
+    }
+
+    @Override
+    public int getEdge(int tail, int head) {
+
+        return (isMember(tail) && isMember(head)) ? graph.getEdge(tail, head) : -1;
+    }
+
+    @Override
+    public int[] getEdgesIncidentTo(int... nodes) {
+
+        TIntSet edges = new TIntHashSet();
+
+        edges.addAll(getInEdges(nodes));
+        edges.addAll(getOutEdges(nodes));
+
+        return edges.toArray();
+    }
+
+    @Override
+    public int[] getInEdges(int... nodes) {
+
+        TIntArrayList edges = new TIntArrayList();
+
+        for (int node : nodes) {
+
+            if (isMember(node)) {
+
+                for (int edge : graph.getInEdges(node)) {
+
+                    if (isMember(graph.getTailNode(edge))) {
+                        edges.add(edge);
+                    }
+                }
+            }
+        }
+        return edges.toArray();
+    }
+
+    @Override
+    public int[] getOutEdges(int... nodes) {
+
+        TIntArrayList edges = new TIntArrayList();
+
+        for (int node : nodes) {
+
+            if (isMember(node)) {
+
+                for (int edge : graph.getOutEdges(node)) {
+
+                    if (isMember(graph.getHeadNode(edge))) {
+                        edges.add(edge);
+                    }
+                }
+            }
+        }
+        return edges.toArray();
+    }
+
+    @Override
+    public int getTailNode(int edge) {
+
+        return containsEdge(edge) ? graph.getTailNode(edge) : -1;
+    }
+
+    @Override
+    public int getHeadNode(int edge) {
+
+        return containsEdge(edge) ? graph.getHeadNode(edge) : -1;
+    }
+
+    @Override
+    public boolean containsNode(int node) {
+
+        return isMember(node);
+    }
+
+    @Override
+    public boolean containsEdge(int edge) {
+
+        return graph.containsEdge(edge) && isMember(graph.getTailNode(edge)) && isMember(graph.getHeadNode(edge));
+    }
+
+    @Override
+    public boolean containsEdge(int tail, int head) {
+
+        return isMember(tail) && isMember(head) && graph.containsEdge(tail, head);
+    }
+
+    @Override
+    public int[] getAncestors(int node) {
+
+        return new GraphTraversal(this).getAncestors(node);
+    }
+
+    @Override
+    public int[] getDescendants(int node) {
+
+        return getDescendants(node, 0);
+    }
+
+    @Override
+    public int[] getDescendants(int node, int maxDepth) {
+
+        return new GraphTraversal(this).getDescendants(node, maxDepth);
+    }
+
+    @Override
+    public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
+
+        return new GraphTraversal(this).isAncestorOf(queryAncestor, queryDescendant);
+    }
+
+    @Override
+    public int[] getPredecessors(int node) {
+
+        TIntArrayList predecessors = new TIntArrayList();
+
+        forEachPredecessor(node, predecessors::add);
+
+        return predecessors.toArray();
+    }
+
+    @Override
+    public int[] getSuccessors(int node) {
+
+        TIntArrayList successors = new TIntArrayList();
+
+        forEachSuccessor(node, successors::add);
+
+        return successors.toArray();
+    }
+
+    @Override
+    public boolean forEachNode(IntPredicate visitor) {
+
+        return GraphTraversal.visitAll(nodes, visitor);
+    }
+
+    @Override
+    public boolean forEachSuccessor(int node, IntPredicate visitor) {
+
+        return !isMember(node) || graph.forEachSuccessor(node, successor -> !isMember(successor) || visitor.test(successor));
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, IntPredicate visitor) {
+
+        return !isMember(node) || graph.forEachPredecessor(node, predecessor -> !isMember(predecessor) || visitor.test(predecessor));
+    }
+
+    @Override
+    public boolean forEachSuccessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        return !isMember(node) || graph.forEachSuccessor(node, edgeLabel, successor -> !isMember(successor) || visitor.test(successor));
+    }
+
+    @Override
+    public boolean forEachPredecessor(int node, String edgeLabel, IntPredicate visitor) {
+
+        return !isMember(node) || graph.forEachPredecessor(node, edgeLabel, predecessor -> !isMember(predecessor) || visitor.test(predecessor));
+    }
+
+    @Override
+    public int getInDegree(int node) {
+
+        int[] degree = new int[1];
+
+        forEachPredecessor(node, predecessor -> {
+            degree[0]++;
+            return true;
+        });
+        return degree[0];
+    }
+
+    @Override
+    public int getOutDegree(int node) {
+
+        int[] degree = new int[1];
+
+        forEachSuccessor(node, successor -> {
+            degree[0]++;
+            return true;
+        });
+        return degree[0];
+    }
+
+    @Override
+    public int[] getSources() {
+
+        TIntArrayList sources = new TIntArrayList();
+
+        forEachSource(sources::add);
+
+        return sources.toArray();
+    }
+
+    @Override
+    public int[] getSinks() {
+
+        TIntArrayList sinks = new TIntArrayList();
+
+        forEachSink(sinks::add);
+
+        return sinks.toArray();
+    }
+
+    /**
+     * @return a copy of the subgraph of the parent graph induced by the given nodes that are members of this view
+     */
+    @Override
+    public DirectedGraph calcSubgraph(int... nodes) {
+
+        TIntArrayList memberNodes = new TIntArrayList(nodes.length);
+
+        for (int node : nodes) {
+
+            if (isMember(node)) {
+                memberNodes.add(node);
+            }
+        }
+        return graph.calcSubgraph(memberNodes.toArray());
+    }
+
+    @Override
+    public int countNodes() {
+
+        return nodes.length;
+    }
+}
@@ -0,0 +1,305 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A topological order of a directed acyclic graph with the depth of each node, computed in O(V+E) with Kahn's
+ * algorithm.
+ *
+ * The depth of a node is the length of the longest path reaching it from a source (sources and isolated nodes have
+ * depth 0), the height of the graph is the greatest depth. Nodes of the same depth form a level: no edge links two
+ * nodes of a level, so they can be processed in parallel once the previous levels are done (see
+ * {@link #processLevels(Direction, IntConsumer)}).
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class TopologicalOrder {
+
+    /** nodes processed by a single task */
+    static final int NODES_PER_TASK = 256;
+
+    public enum Direction {
+
+        /** from the sources (depth 0) to the deepest nodes: the predecessors of a node are processed before it */
+        TOP_DOWN,
+        /** from the deepest nodes to the sources: the successors of a node are processed before it */
+        BOTTOM_UP
+    }
+
+    private final int[] nodes;
+    private final int[] depths;
+    private final TIntIntMap positions;
+    private final int height;
+    // nodes grouped by increasing depth, level d is levelNodes[levelOffsets[d]..levelOffsets[d+1])
+    private final int[] levelNodes;
+    private final int[] levelOffsets;
+
+    private TopologicalOrder(int[] nodes, int[] depths) {
+
+        this.nodes = nodes;
+        this.depths = depths;
+        this.positions = new TIntIntHashMap(nodes.length, 0.5f, -1, -1);
+
+        int maxDepth = 0;
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            positions.put(nodes[i], i);
+            maxDepth = Math.max(maxDepth, depths[i]);
+        }
+        this.height = maxDepth;
+
+        // counting sort of the nodes by depth
+        this.levelOffsets = new int[(nodes.length == 0) ? 1 : height+2];
+        this.levelNodes = new int[nodes.length];
+
+        for (int depth : depths) {
+            levelOffsets[depth+1]++;
+        }
+        for (int depth=1 ; depth<levelOffsets.length ; depth++) {
+            levelOffsets[depth] += levelOffsets[depth-1];
+        }
+
+        int[] next = levelOffsets.clone();
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            levelNodes[next[depths[i]]++] = nodes[i];
+        }
+    }
+
+    /**
+     * Sort the nodes of the given graph in topological order
+     * @param graph a directed acyclic graph
+     * @return the topological order
+     * @throws DirectedGraph.CycleDetectedException with the path of a cycle if the graph is not acyclic
+     */
+    public static TopologicalOrder of(DirectedGraph graph) throws DirectedGraph.CycleDetectedException {
+
+        int[] nodes = graph.getNodes();
+        IntUnaryOperator indices = GraphTraversal.positionIndexerOf(graph, nodes);
+        int[] inDegrees = new int[nodes.length];
+        int[] depths = new int[nodes.length];
+        TIntArrayList queue = new TIntArrayList(nodes.length);
+
+        for (int i=0 ; i<nodes.length ; i++) {
+
+            inDegrees[i] = graph.getInDegree(nodes[i]);
+
+            if (inDegrees[i] == 0) {
+                queue.add(i);
+            }
+        }
+
+        for (int head=0 ; head<queue.size() ; head++) {
+
+            int index = queue.getQuick(head);
+            int successorDepth = depths[index] + 1;
+
+            graph.forEachSuccessor(nodes[index], successor -> {
+
+                int s = indices.applyAsInt(successor);
+
+                depths[s] = Math.max(depths[s], successorDepth);
+
+                if (--inDegrees[s] == 0) {
+                    queue.add(s);
+                }
+                return true;
+            });
+        }
+
+        if (queue.size() < nodes.length) {
+            throw new DirectedGraph.CycleDetectedException(findCycle(graph, nodes, indices, inDegrees));
+        }
+
+        int[] orderedNodes = new int[nodes.length];
+        int[] orderedDepths = new int[nodes.length];
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            orderedNodes[i] = nodes[queue.getQuick(i)];
+            orderedDepths[i] = depths[queue.getQuick(i)];
+        }
+
+        return new TopologicalOrder(orderedNodes, orderedDepths);
+    }
+
+    /**
+     * Walk backward from a node left unsorted by Kahn's algorithm (all its predecessors cannot be sorted) until
+     * a node repeats
+     * @return the path of nodes closing a cycle in edge direction
+     */
+    private static TIntList findCycle(DirectedGraph graph, int[] nodes, IntUnaryOperator indices, int[] inDegrees) {
+
+        int index = 0;
+        while (inDegrees[index] == 0) {
+            index++;
+        }
+
+        TIntIntMap positions = new TIntIntHashMap(16, 0.5f, -1, -1);
+        TIntList path = new TIntArrayList();
+        int[] current = new int[] {index};
+
+        while (!positions.containsKey(current[0])) {
+
+            positions.put(current[0], path.size());
+            path.add(current[0]);
+
+            graph.forEachPredecessor(nodes[current[0]], predecessor -> {
+
+                int p = indices.applyAsInt(predecessor);
+
+                if (inDegrees[p] > 0) {
+                    current[0] = p;
+                    return false;
+                }
+                return true;
+            });
+        }
+
+        TIntList cycle = new TIntArrayList();
+
+        cycle.add(nodes[current[0]]);
+        for (int i=path.size()-1 ; i>=positions.get(current[0]) ; i--) {
+            cycle.add(nodes[path.get(i)]);
+        }
+
+        return cycle;
+    }
+
+    /**
+     * @return the graph nodes sorted so that each edge tail comes before its head
+     */
+    public int[] getNodes() {
+
+        return nodes.clone();
+    }
+
+    /**
+     * @return the depth of each node of {@link #getNodes()} at the same position
+     */
+    public int[] getDepths() {
+
+        return depths.clone();
+    }
+
+    /**
+     * @return the length of the longest path from a source to the given node or -1 if not found
+     */
+    public int getDepth(int node) {
+
+        int position = positions.get(node);
+
+        return (position == -1) ? -1 : depths[position];
+    }
+
+    /**
+     * @return the length of the longest path of the graph
+     */
+    public int getHeight() {
+
+        return height;
+    }
+
+    /**
+     * @return the number of sorted nodes
+     */
+    public int countNodes() {
+
+        return nodes.length;
+    }
+
+    /**
+     * @return the number of levels (height + 1, or 0 for an empty graph)
+     */
+    public int countLevels() {
+
+        return (nodes.length == 0) ? 0 : height+1;
+    }
+
+    /**
+     * @return the nodes of the given depth
+     */
+    public int[] getLevel(int depth) {
+
+        if (depth < 0 || depth >= countLevels()) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(levelNodes, levelOffsets[depth], levelOffsets[depth+1]);
+    }
+
+    /**
+     * Process all the nodes level by level with the common fork/join pool
+     * @see #processLevels(Direction, IntConsumer, ForkJoinPool)
+     */
+    public void processLevels(Direction direction, IntConsumer action) {
+
+        processLevels(direction, action, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Process all the nodes level by level: the nodes of a level are processed in parallel, and only once all the
+     * nodes of the previous level are done (whose results are then visible to the action).
+     *
+     * Typical use is a roll-up where each node combines the values of its successors (BOTTOM_UP) or predecessors
+     * (TOP_DOWN), each node writing its own value only. Overall the graph is processed in O(V+E).
+     *
+     * @param direction the order of the levels
+     * @param action called once on each node, possibly from several threads
+     * @param pool the pool running the actions
+     */
+    public void processLevels(Direction direction, IntConsumer action, ForkJoinPool pool) {
+
+        int levelCount = countLevels();
+
+        for (int i=0 ; i<levelCount ; i++) {
+
+            int depth = (direction == Direction.TOP_DOWN) ? i : levelCount-1-i;
+            LevelTask task = new LevelTask(action, levelOffsets[depth], levelOffsets[depth+1]);
+
+            if (task.to - task.from <= NODES_PER_TASK) {
+                task.compute();
+            }
+            else {
+                pool.invoke(task);
+            }
+        }
+    }
+
+    private class LevelTask extends RecursiveAction {
+
+        private final IntConsumer action;
+        private final int from;
+        private final int to;
+
+        private LevelTask(IntConsumer action, int from, int to) {
+
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= NODES_PER_TASK) {
+
+                for (int i=from ; i<to ; i++) {
+                    action.accept(levelNodes[i]);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+
+            invokeAll(new LevelTask(action, from, middle), new LevelTask(action, middle, to));
+        }
+    }
+}
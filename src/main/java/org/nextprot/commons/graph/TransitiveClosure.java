@@ -0,0 +1,369 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * A precomputed index of all ancestor and descendant relations of a directed acyclic graph.
+ *
+ * The closure is built in one pass over a topological order of the graph and can be stored either as dense
+ * bitsets (two V x V bit matrices, constant time membership, only affordable for small graphs) or as sorted arrays
+ * of node slots (memory proportional to the size of the closure, logarithmic time membership).
+ * Use {@link #estimateMemoryUsage(int, Representation)} and {@link #getMemoryUsage()} to choose between them.
+ *
+ * The closure is computed on a temporary frozen copy of the graph: only the slots of its nodes are kept.
+ */
+public abstract class TransitiveClosure {
+
+    /** bitsets are suggested as long as they fit in this number of bytes */
+    static final long MAX_SUGGESTED_BITSET_BYTES = 64L * 1024 * 1024;
+
+    public enum Representation {
+
+        DENSE_BITSET,
+        SORTED_ARRAYS
+    }
+
+    private final SlotIndex slots;
+
+    private TransitiveClosure(SlotIndex slots) {
+
+        this.slots = slots;
+    }
+
+    /**
+     * Build the transitive closure of the given graph
+     * @param graph a directed acyclic graph
+     * @param representation the closure storage
+     * @return the transitive closure
+     * @throws DirectedGraph.CycleDetectedException if the graph contains a cycle
+     */
+    public static TransitiveClosure build(DirectedGraph graph, Representation representation) throws DirectedGraph.CycleDetectedException {
+
+        FrozenIntGraph frozen = FrozenIntGraph.of(graph);
+        int[] order = frozen.calcTopologicalSlotOrder();
+        SlotIndex slots = SlotIndex.of(graph, frozen);
+
+        switch (representation) {
+            case DENSE_BITSET:
+                return new DenseBitsetClosure(frozen, slots, order);
+            case SORTED_ARRAYS:
+                return new SortedArraysClosure(frozen, slots, order);
+            default:
+                throw new IllegalStateException("unknown closure representation "+representation);
+        }
+    }
+
+    /**
+     * Estimate the memory needed to store the closure of a graph
+     * @param nodeCount the number of graph nodes
+     * @param representation the closure storage
+     * @return the estimated number of bytes like {@link #getMemoryUsage()} or -1 if it depends on the closure size
+     * (sorted arrays)
+     */
+    public static long estimateMemoryUsage(int nodeCount, Representation representation) {
+
+        if (representation == Representation.DENSE_BITSET) {
+            // bit matrices and the node of each slot
+            return 2L * nodeCount * wordsPerRow(nodeCount) * Long.BYTES + 16 + (long) nodeCount * Integer.BYTES;
+        }
+        return -1;
+    }
+
+    /**
+     * @return DENSE_BITSET if both bit matrices of a graph with the given number of nodes fit in 64MB else SORTED_ARRAYS
+     */
+    public static Representation suggestRepresentation(int nodeCount) {
+
+        return (estimateMemoryUsage(nodeCount, Representation.DENSE_BITSET) <= MAX_SUGGESTED_BITSET_BYTES) ?
+                Representation.DENSE_BITSET : Representation.SORTED_ARRAYS;
+    }
+
+    private static int wordsPerRow(int nodeCount) {
+
+        return (nodeCount + 63) >>> 6;
+    }
+
+    /**
+     * @return the ancestors of the given node
+     */
+    public int[] getAncestors(int node) {
+
+        int slot = slots.slotOf(node);
+
+        return (slot == -1) ? new int[0] : toNodes(getAncestorSlots(slot));
+    }
+
+    /**
+     * @return the descendants of the given node
+     */
+    public int[] getDescendants(int node) {
+
+        int slot = slots.slotOf(node);
+
+        return (slot == -1) ? new int[0] : toNodes(getDescendantSlots(slot));
+    }
+
+    /**
+     * @return true if queryDescendant is a descendant of queryAncestor
+     */
+    public boolean isAncestorOf(int queryAncestor, int queryDescendant) {
+
+        int ancestorSlot = slots.slotOf(queryAncestor);
+        int descendantSlot = slots.slotOf(queryDescendant);
+
+        return ancestorSlot != -1 && descendantSlot != -1 && isAncestorSlotOf(ancestorSlot, descendantSlot);
+    }
+
+    /**
+     * @return the number of nodes in the closure
+     */
+    public int countNodes() {
+
+        return slots.countNodes();
+    }
+
+    private int[] toNodes(int[] nodeSlots) {
+
+        for (int i=0 ; i<nodeSlots.length ; i++) {
+            nodeSlots[i] = slots.nodeAt(nodeSlots[i]);
+        }
+        return nodeSlots;
+    }
+
+    /**
+     * @return the representation of this closure
+     */
+    public abstract Representation getRepresentation();
+
+    /**
+     * @return the number of bytes used by the closure and the node slots (the slot index shared with an IntGraph or a
+     * FrozenIntGraph is not counted)
+     */
+    public long getMemoryUsage() {
+
+        return getRelationsMemoryUsage() + slots.getMemoryUsage();
+    }
+
+    /**
+     * @return the number of bytes used to store the ancestor and descendant relations
+     */
+    abstract long getRelationsMemoryUsage();
+
+    abstract boolean isAncestorSlotOf(int ancestorSlot, int descendantSlot);
+
+    /**
+     * @return a new array of the ancestor slots
+     */
+    abstract int[] getAncestorSlots(int slot);
+
+    /**
+     * @return a new array of the descendant slots
+     */
+    abstract int[] getDescendantSlots(int slot);
+
+    /**
+     * Closure stored as two bit matrices with one row of ceil(V/64) words per node
+     */
+    private static class DenseBitsetClosure extends TransitiveClosure {
+
+        private final int wordsPerRow;
+        private final long[] ancestors;
+        private final long[] descendants;
+
+        private DenseBitsetClosure(FrozenIntGraph graph, SlotIndex slots, int[] order) {
+
+            super(slots);
+
+            int nodeCount = graph.countNodes();
+
+            this.wordsPerRow = wordsPerRow(nodeCount);
+
+            if ((long) nodeCount * wordsPerRow > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("too many nodes for a dense bitset closure: "+nodeCount);
+            }
+
+            this.ancestors = new long[nodeCount * wordsPerRow];
+            this.descendants = new long[nodeCount * wordsPerRow];
+
+            // ancestors of a node are its predecessors and their ancestors, already computed in topological order
+            for (int slot : order) {
+                unionRows(ancestors, slot, graph.inOffsets(), graph.inSources());
+            }
+
+            for (int i=order.length-1 ; i>=0 ; i--) {
+                unionRows(descendants, order[i], graph.outOffsets(), graph.outTargets());
+            }
+        }
+
+        private void unionRows(long[] matrix, int slot, int[] offsets, int[] neighbours) {
+
+            int row = slot * wordsPerRow;
+
+            for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+
+                int neighbour = neighbours[i];
+                int neighbourRow = neighbour * wordsPerRow;
+
+                for (int w=0 ; w<wordsPerRow ; w++) {
+                    matrix[row+w] |= matrix[neighbourRow+w];
+                }
+                matrix[row + (neighbour >>> 6)] |= 1L << neighbour;
+            }
+        }
+
+        @Override
+        public Representation getRepresentation() {
+
+            return Representation.DENSE_BITSET;
+        }
+
+        @Override
+        long getRelationsMemoryUsage() {
+
+            return (long) (ancestors.length + descendants.length) * Long.BYTES;
+        }
+
+        @Override
+        boolean isAncestorSlotOf(int ancestorSlot, int descendantSlot) {
+
+            return (ancestors[descendantSlot * wordsPerRow + (ancestorSlot >>> 6)] & (1L << ancestorSlot)) != 0;
+        }
+
+        @Override
+        int[] getAncestorSlots(int slot) {
+
+            return rowSlots(ancestors, slot);
+        }
+
+        @Override
+        int[] getDescendantSlots(int slot) {
+
+            return rowSlots(descendants, slot);
+        }
+
+        private int[] rowSlots(long[] matrix, int slot) {
+
+            int row = slot * wordsPerRow;
+            int count = 0;
+
+            for (int w=0 ; w<wordsPerRow ; w++) {
+                count += Long.bitCount(matrix[row+w]);
+            }
+
+            int[] slots = new int[count];
+            int i = 0;
+
+            for (int w=0 ; w<wordsPerRow ; w++) {
+
+                long word = matrix[row+w];
+
+                while (word != 0) {
+                    slots[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+
+            return slots;
+        }
+    }
+
+    /**
+     * Closure stored as one sorted array of slots per node
+     */
+    private static class SortedArraysClosure extends TransitiveClosure {
+
+        private final int[][] ancestors;
+        private final int[][] descendants;
+
+        private SortedArraysClosure(FrozenIntGraph graph, SlotIndex slots, int[] order) {
+
+            super(slots);
+
+            int nodeCount = graph.countNodes();
+
+            this.ancestors = new int[nodeCount][];
+            this.descendants = new int[nodeCount][];
+
+            // marks[s] == slot+1 when s has already been collected for slot
+            int[] marks = new int[nodeCount];
+            TIntArrayList buffer = new TIntArrayList();
+
+            for (int slot : order) {
+                ancestors[slot] = unionRows(slot, graph.inOffsets(), graph.inSources(), ancestors, marks, buffer);
+            }
+
+            Arrays.fill(marks, 0);
+
+            for (int i=order.length-1 ; i>=0 ; i--) {
+                descendants[order[i]] = unionRows(order[i], graph.outOffsets(), graph.outTargets(), descendants, marks, buffer);
+            }
+        }
+
+        private static int[] unionRows(int slot, int[] offsets, int[] neighbours, int[][] rows, int[] marks, TIntArrayList buffer) {
+
+            buffer.resetQuick();
+
+            for (int i=offsets[slot] ; i<offsets[slot+1] ; i++) {
+
+                int neighbour = neighbours[i];
+
+                collect(neighbour, slot, marks, buffer);
+                for (int s : rows[neighbour]) {
+                    collect(s, slot, marks, buffer);
+                }
+            }
+
+            int[] row = buffer.toArray();
+            Arrays.sort(row);
+
+            return row;
+        }
+
+        private static void collect(int s, int slot, int[] marks, TIntArrayList buffer) {
+
+            if (marks[s] != slot+1) {
+                marks[s] = slot+1;
+                buffer.add(s);
+            }
+        }
+
+        @Override
+        public Representation getRepresentation() {
+
+            return Representation.SORTED_ARRAYS;
+        }
+
+        @Override
+        long getRelationsMemoryUsage() {
+
+            // array header (16 bytes) and reference (8 bytes) per row
+            long bytes = 2L * 16 + 2L * ancestors.length * (16 + 8);
+
+            for (int slot=0 ; slot<ancestors.length ; slot++) {
+                bytes += (long) (ancestors[slot].length + descendants[slot].length) * Integer.BYTES;
+            }
+
+            return bytes;
+        }
+
+        @Override
+        boolean isAncestorSlotOf(int ancestorSlot, int descendantSlot) {
+
+            return Arrays.binarySearch(ancestors[descendantSlot], ancestorSlot) >= 0;
+        }
+
+        @Override
+        int[] getAncestorSlots(int slot) {
+
+            return ancestors[slot].clone();
+        }
+
+        @Override
+        int[] getDescendantSlots(int slot) {
+
+            return descendants[slot].clone();
+        }
+    }
+}
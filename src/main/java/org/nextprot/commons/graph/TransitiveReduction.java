@@ -0,0 +1,262 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The transitive reduction of a directed acyclic graph: the graph with the fewest edges having the same reachability,
+ * obtained by dropping every redundant edge u -> v (v is also reachable from u through a longer path).
+ *
+ * The edges of each node are checked independently, in parallel over the nodes. The successors of a node are visited
+ * in topological order: a successor already reached from a previous one is redundant, else its descendants are
+ * marked. The search never goes past the topological position of the last successor, so it stays local on
+ * ontology-like graphs.
+ *
+ * Edge labels are not considered while reducing: an edge is redundant whatever the labels along the longer path.
+ */
+public final class TransitiveReduction {
+
+    /** nodes checked by a single task */
+    static final int NODES_PER_TASK = 256;
+
+    private final IntGraph reducedGraph;
+    private final int[] redundantEdges;
+
+    private TransitiveReduction(IntGraph reducedGraph, int[] redundantEdges) {
+
+        this.reducedGraph = reducedGraph;
+        this.redundantEdges = redundantEdges;
+    }
+
+    /**
+     * Compute the transitive reduction with the common fork/join pool
+     * @see #of(DirectedGraph, ForkJoinPool)
+     */
+    public static TransitiveReduction of(DirectedGraph graph) throws DirectedGraph.CycleDetectedException {
+
+        return of(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compute the transitive reduction of the given graph
+     * @param graph a directed acyclic graph
+     * @param pool the pool running the computation
+     * @return the reduced graph and the dropped edges
+     * @throws DirectedGraph.CycleDetectedException if the graph contains a cycle
+     */
+    public static TransitiveReduction of(DirectedGraph graph, ForkJoinPool pool) throws DirectedGraph.CycleDetectedException {
+
+        FrozenIntGraph frozen = FrozenIntGraph.of(graph);
+        int[] order = frozen.calcTopologicalSlotOrder();
+        int[] positions = new int[order.length];
+
+        for (int i=0 ; i<order.length ; i++) {
+            positions[order[i]] = i;
+        }
+
+        boolean[] redundant = new boolean[frozen.countEdges()];
+        ThreadLocal<BitSet> reached = ThreadLocal.withInitial(() -> new BitSet(order.length));
+        ReductionTask task = new ReductionTask(frozen, positions, redundant, reached, 0, order.length);
+
+        if (order.length <= NODES_PER_TASK) {
+            task.compute();
+        }
+        else {
+            pool.invoke(task);
+        }
+
+        // frozen copies of other graphs number their edges in the order of getEdges()
+        int[] sourceEdges = (graph instanceof IntGraph || graph instanceof FrozenIntGraph) ? null : graph.getEdges();
+        TIntArrayList redundantEdges = new TIntArrayList();
+
+        for (int edge=0 ; edge<redundant.length ; edge++) {
+
+            if (redundant[edge]) {
+                redundantEdges.add((sourceEdges != null) ? sourceEdges[edge] : edge);
+            }
+        }
+
+        return new TransitiveReduction(newReducedGraph(frozen, redundant), redundantEdges.toArray());
+    }
+
+    /**
+     * @return a copy of the graph without the redundant edges, with the node metadata and the labels of kept edges
+     */
+    private static IntGraph newReducedGraph(FrozenIntGraph graph, boolean[] redundant) {
+
+        TIntArrayList nodes = new TIntArrayList(graph.countNodes());
+        TIntArrayList tails = new TIntArrayList(redundant.length);
+        TIntArrayList heads = new TIntArrayList(redundant.length);
+        TIntArrayList keptEdges = new TIntArrayList(redundant.length);
+
+        for (int slot=0 ; slot<graph.countNodes() ; slot++) {
+            nodes.add(graph.nodeAt(slot));
+        }
+
+        for (int edge=0 ; edge<redundant.length ; edge++) {
+
+            if (!redundant[edge]) {
+                tails.add(graph.getTailNode(edge));
+                heads.add(graph.getHeadNode(edge));
+                keptEdges.add(edge);
+            }
+        }
+
+        IntGraph reduced = new IntGraph(graph.getGraphLabel() + " (transitive reduction)", nodes, tails, heads);
+
+        for (int reducedEdge=0 ; reducedEdge<keptEdges.size() ; reducedEdge++) {
+
+            String label = graph.getEdgeLabel(keptEdges.getQuick(reducedEdge));
+
+            if (label != null) {
+                reduced.setEdgeLabel(reducedEdge, label);
+            }
+        }
+
+        for (String key : graph.getMetadataKeys()) {
+
+            for (int i=0 ; i<nodes.size() ; i++) {
+
+                String value = graph.getNodeMetadataValue(nodes.getQuick(i), key);
+
+                if (value != null) {
+                    reduced.addNodeMetadata(nodes.getQuick(i), key, value);
+                }
+            }
+        }
+
+        return reduced;
+    }
+
+    /**
+     * @return the graph without the redundant edges (node ids, node metadata and edge labels are kept, edges are
+     * renumbered)
+     */
+    public IntGraph getReducedGraph() {
+
+        return reducedGraph;
+    }
+
+    /**
+     * @return the ids of the dropped edges in the original graph
+     */
+    public int[] getRedundantEdges() {
+
+        return redundantEdges.clone();
+    }
+
+    /**
+     * @return the number of dropped edges
+     */
+    public int countRedundantEdges() {
+
+        return redundantEdges.length;
+    }
+
+    private static class ReductionTask extends RecursiveAction {
+
+        private final FrozenIntGraph graph;
+        private final int[] positions;
+        private final boolean[] redundant;
+        // the nodes reached from the current node, cleared after each node
+        private final ThreadLocal<BitSet> reached;
+        private final int from;
+        private final int to;
+
+        private ReductionTask(FrozenIntGraph graph, int[] positions, boolean[] redundant, ThreadLocal<BitSet> reached,
+                              int from, int to) {
+
+            this.graph = graph;
+            this.positions = positions;
+            this.redundant = redundant;
+            this.reached = reached;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= NODES_PER_TASK) {
+
+                BitSet reachedSlots = reached.get();
+                TIntArrayList stack = new TIntArrayList();
+                TIntArrayList touched = new TIntArrayList();
+
+                for (int slot=from ; slot<to ; slot++) {
+                    markRedundantEdges(slot, reachedSlots, stack, touched);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+
+            invokeAll(new ReductionTask(graph, positions, redundant, reached, from, middle),
+                    new ReductionTask(graph, positions, redundant, reached, middle, to));
+        }
+
+        private void markRedundantEdges(int slot, BitSet reached, TIntArrayList stack, TIntArrayList touched) {
+
+            int[] offsets = graph.outOffsets();
+            int[] targets = graph.outTargets();
+            int[] edges = graph.outEdges();
+            int from = offsets[slot];
+            int degree = offsets[slot+1] - from;
+
+            if (degree < 2) {
+                return;
+            }
+
+            // successors sorted by topological position (high bits) with their row index (low bits)
+            long[] successors = new long[degree];
+
+            for (int i=0 ; i<degree ; i++) {
+                successors[i] = ((long) positions[targets[from+i]] << 32) | i;
+            }
+            Arrays.sort(successors);
+
+            int maxPosition = (int) (successors[degree-1] >>> 32);
+
+            for (long successor : successors) {
+
+                int i = from + (int) successor;
+                int target = targets[i];
+
+                if (reached.get(target)) {
+                    redundant[edges[i]] = true;
+                    continue;
+                }
+
+                reached.set(target);
+                touched.add(target);
+                stack.add(target);
+
+                while (!stack.isEmpty()) {
+
+                    int current = stack.removeAt(stack.size()-1);
+
+                    for (int j=offsets[current] ; j<offsets[current+1] ; j++) {
+
+                        int next = targets[j];
+
+                        // nodes after the last successor cannot reach any of them
+                        if (positions[next] <= maxPosition && !reached.get(next)) {
+                            reached.set(next);
+                            touched.add(next);
+                            stack.add(next);
+                        }
+                    }
+                }
+            }
+
+            for (int i=0 ; i<touched.size() ; i++) {
+                reached.clear(touched.getQuick(i));
+            }
+            touched.resetQuick();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.nextprot.commons.graph;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.Consumer;
+
+/**
+ * A graph shared between reader and writer threads through immutable snapshots.
+ *
+ * Readers get the last published {@link Version}, a snapshot with its number, with a single volatile read: a
+ * snapshot never changes, so queries need no lock and always see a consistent graph, whatever the updates published
+ * meanwhile.
+ *
+ * Writers are serialized. Each update is applied to a private mutable IntGraph kept between updates (so it does
+ * not have to be rebuilt), which is then frozen and published as the next version. Snapshots share no arrays: each
+ * publication is a full O(V+E) copy of the graph, so many small changes should be grouped in a single update. If an
+ * update fails, the mutable graph is restored from the last published snapshot and no version is published.
+ */
+public final class VersionedGraph {
+
+    private final Object writeLock = new Object();
+    // only accessed by writers holding the lock
+    private IntGraph master;
+    private volatile Version current;
+
+    /**
+     * Create an empty versioned graph
+     */
+    public VersionedGraph(String label) {
+
+        this(new IntGraph(label));
+    }
+
+    /**
+     * Create a versioned graph with a copy of the given graph as first version
+     */
+    public VersionedGraph(DirectedGraph graph) {
+
+        Preconditions.checkNotNull(graph, "initial graph should be defined");
+
+        FrozenIntGraph snapshot = FrozenIntGraph.of(graph);
+
+        this.master = thaw(snapshot);
+        this.current = new Version(snapshot, 0);
+    }
+
+    /**
+     * @return the last published version, its snapshot and number read together
+     */
+    public Version getCurrentVersion() {
+
+        return current;
+    }
+
+    /**
+     * @return the last published snapshot (use {@link #getCurrentVersion()} to get its number too)
+     */
+    public FrozenIntGraph getSnapshot() {
+
+        return current.snapshot;
+    }
+
+    /**
+     * @return the number of the last published version (use {@link #getCurrentVersion()} to get its snapshot too)
+     */
+    public long getVersion() {
+
+        return current.number;
+    }
+
+    /**
+     * Apply the given mutation and publish a frozen copy of the resulting graph as a new version
+     * @param mutation the changes to apply on the mutable graph (must not keep a reference to it)
+     * @return the published snapshot
+     * @throws RuntimeException the exception thrown by the mutation, in which case no version is published
+     */
+    public FrozenIntGraph update(Consumer<IntGraph> mutation) {
+
+        synchronized (writeLock) {
+
+            try {
+                mutation.accept(master);
+            } catch (RuntimeException | Error e) {
+                master = thaw(current.snapshot);
+                throw e;
+            }
+
+            return publish(master.freeze());
+        }
+    }
+
+    /**
+     * Publish a copy of the given graph as a new version
+     * @return the published snapshot
+     */
+    public FrozenIntGraph replace(DirectedGraph graph) {
+
+        Preconditions.checkNotNull(graph, "graph should be defined");
+
+        synchronized (writeLock) {
+
+            FrozenIntGraph snapshot = FrozenIntGraph.of(graph);
+
+            master = thaw(snapshot);
+
+            return publish(snapshot);
+        }
+    }
+
+    private FrozenIntGraph publish(FrozenIntGraph snapshot) {
+
+        current = new Version(snapshot, current.number + 1);
+
+        return snapshot;
+    }
+
+    /**
+     * @return a mutable copy of the given graph preserving node slots, edge ids, edge labels and metadata
+     */
+    private static IntGraph thaw(FrozenIntGraph graph) {
+
+        IntGraph copy = new IntGraph(graph.getGraphLabel());
+
+        graph.forEachNode(node -> {
+            copy.addNode(node);
+            return true;
+        });
+
+        for (int edge=0 ; edge<graph.countEdges() ; edge++) {
+
+            copy.addEdge(graph.getTailNode(edge), graph.getHeadNode(edge));
+
+            String label = graph.getEdgeLabel(edge);
+
+            if (label != null) {
+                copy.setEdgeLabel(edge, label);
+            }
+        }
+
+        for (String key : graph.getMetadataKeys()) {
+
+            graph.forEachNode(node -> {
+
+                String value = graph.getNodeMetadataValue(node, key);
+
+                if (value != null) {
+                    copy.addNodeMetadata(node, key, value);
+                }
+                return true;
+            });
+        }
+
+        return copy;
+    }
+
+    /**
+     * An immutable published snapshot and its number
+     */
+    public static final class Version {
+
+        private final FrozenIntGraph snapshot;
+        private final long number;
+
+        private Version(FrozenIntGraph snapshot, long number) {
+
+            this.snapshot = snapshot;
+            this.number = number;
+        }
+
+        /**
+         * @return the snapshot published with this version
+         */
+        public FrozenIntGraph getSnapshot() {
+
+            return snapshot;
+        }
+
+        /**
+         * @return the version number (0 for the first version, incremented by each update)
+         */
+        public long getNumber() {
+
+            return number;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.map.TIntLongMap;
+import gnu.trove.map.hash.TIntLongHashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+
+public class AnnotationRollupTest {
+
+    /*
+                1 ---2--3
+            6__ 5 __/  /
+              \     \ /
+               \     4
+                7 __/
+    */
+    @Test
+    public void countsShouldBeRolledUpOncePerDescendant() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        TIntLongMap counts = new TIntLongHashMap();
+        counts.put(3, 10);
+        counts.put(4, 5);
+        counts.put(2, 1);
+        counts.put(7, 2);
+        counts.put(42, 100);
+
+        TIntLongMap sums = AnnotationRollup.rollUp(graph, counts, Long::sum);
+
+        Assert.assertEquals(7, sums.size());
+        Assert.assertEquals(18, sums.get(6));
+        Assert.assertEquals(16, sums.get(5));
+        Assert.assertEquals(11, sums.get(1));
+        Assert.assertEquals(17, sums.get(7));
+        Assert.assertEquals(15, sums.get(4));
+        Assert.assertEquals(11, sums.get(2));
+        Assert.assertEquals(10, sums.get(3));
+
+        TIntLongMap maxima = AnnotationRollup.rollUp(graph, counts, Math::max);
+
+        Assert.assertEquals(10, maxima.get(6));
+        Assert.assertEquals(10, maxima.get(7));
+    }
+
+    @Test
+    public void nodesWithoutCountsBelowShouldBeMissing() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        TIntLongMap counts = new TIntLongHashMap();
+        counts.put(7, 2);
+
+        TIntLongMap sums = AnnotationRollup.rollUp(graph, counts, Long::sum);
+
+        Assert.assertEquals(2, sums.size());
+        Assert.assertEquals(2, sums.get(7));
+        Assert.assertEquals(2, sums.get(6));
+        Assert.assertFalse(sums.containsKey(5));
+    }
+
+    @Test
+    public void countsShouldBeResolvedFromMetadata() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(3, "accession", "TS-0003");
+        graph.addNodeMetadata(4, "accession", "TS-0004");
+        graph.addNodeMetadata(4, "synonym", "TS-4");
+
+        Map<String, Integer> countsByAccession = new HashMap<>();
+        countsByAccession.put("TS-0003", 3);
+        countsByAccession.put("TS-0004", 4);
+        countsByAccession.put("TS-4", 40);
+        countsByAccession.put("TS-9999", 1000);
+
+        TIntLongMap counts = AnnotationRollup.toNodeCounts(graph, countsByAccession);
+
+        Assert.assertEquals(2, counts.size());
+        Assert.assertEquals(3, counts.get(3));
+        Assert.assertEquals(44, counts.get(4));
+
+        counts = AnnotationRollup.toNodeCounts(graph, "accession", countsByAccession);
+
+        Assert.assertEquals(4, counts.get(4));
+        Assert.assertEquals(7, AnnotationRollup.rollUp(graph, counts, Long::sum).get(6));
+    }
+
+    @Test
+    public void rollUpShouldMatchDescendantSums() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 5000, 3, 23);
+
+        Random random = new Random(29);
+        TIntLongMap counts = new TIntLongHashMap();
+
+        for (int node=0 ; node<5000 ; node++) {
+
+            if (random.nextInt(3) == 0) {
+                counts.put(node, random.nextInt(100));
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TIntLongMap sums;
+
+        try {
+            sums = AnnotationRollup.rollUp(graph, counts, Long::sum, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int node=0 ; node<5000 ; node++) {
+
+            long expected = counts.get(node);
+            boolean counted = counts.containsKey(node);
+
+            for (int descendant : graph.getDescendants(node)) {
+                expected += counts.get(descendant);
+                counted |= counts.containsKey(descendant);
+            }
+
+            Assert.assertEquals(counted, sums.containsKey(node));
+            Assert.assertEquals(expected, sums.get(node));
+        }
+    }
+
+    @Test(expected = DirectedGraph.CycleDetectedException.class)
+    public void rollUpShouldNeedAcyclicGraph() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        AnnotationRollup.rollUp(graph, new TIntLongHashMap(), Long::sum);
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.nextprot.commons.graph.IntGraph.arrayContainsElement;
 
 public abstract class BaseIntGraphTest {
@@ -183,6 +185,24 @@ public abstract class BaseIntGraphTest {
         Assert.assertEquals(-1, graph.getEdge(16, 5));
     }
 
+    @Test
+    public void getEdgeLabelByEndPoints() {
+
+        populateExampleGraph(graph);
+        graph.setEdgeLabel(graph.getEdge(6, 7), "is_a");
+
+        Assert.assertEquals("is_a", graph.getEdgeLabel(6, 7));
+        Assert.assertNull(graph.getEdgeLabel(6, 5));
+        Assert.assertNull(graph.getEdgeLabel(7, 6));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addSameEdges() {
+
+        graph.addEdge(0, 1);
+        graph.addEdge(0, 1);
+    }
+
     @Test
     public void setGraphlabel() {
 
@@ -201,6 +221,46 @@ public abstract class BaseIntGraphTest {
         Assert.assertNull(graph.getNodeMetadataValue(2, "label"));
     }
 
+    @Test
+    public void getNodeFromMetadata() {
+
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(1, "accession", "GO:0000001");
+        graph.addNodeMetadata(1, "name", "mitochondrion inheritance");
+        graph.addNodeMetadata(2, "accession", "GO:0000002");
+        graph.addNodeMetadata(3, "name", "GO:0000003");
+        // the same value can be associated with other keys of the same node
+        graph.addNodeMetadata(3, "alias", "GO:0000003");
+
+        Assert.assertEquals(1, graph.getNodeFromMetadata("GO:0000001"));
+        Assert.assertEquals(1, graph.getNodeFromMetadata("mitochondrion inheritance"));
+        Assert.assertEquals(3, graph.getNodeFromMetadata("GO:0000003"));
+        Assert.assertEquals(-1, graph.getNodeFromMetadata("GO:0000004"));
+        Assert.assertEquals(2, graph.getNodeFromMetadata("accession", "GO:0000002"));
+        Assert.assertEquals(-1, graph.getNodeFromMetadata("name", "GO:0000002"));
+        Assert.assertEquals(3, graph.getNodeFromMetadata("alias", "GO:0000003"));
+        Assert.assertEquals(-1, graph.getNodeFromMetadata("unknown", "GO:0000003"));
+        Assert.assertEquals("mitochondrion inheritance", graph.getNodeMetadataValue(1, "name"));
+        Assert.assertNull(graph.getNodeMetadataValue(2, "name"));
+        Assert.assertNull(graph.getNodeMetadataValue(2, "unknown"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setNodeMetadataKeyTwice() {
+
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(1, "label", "node 1");
+        graph.addNodeMetadata(1, "label", "node one");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setNodeMetadataValueOfAnotherNode() {
+
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(1, "label", "node 1");
+        graph.addNodeMetadata(2, "alias", "node 1");
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void setNodelabelUnknownNode() {
 
@@ -227,6 +287,76 @@ public abstract class BaseIntGraphTest {
                 .containsAll(new int[]{2, 3, 4}));
     }
 
+    @Test
+    public void visitSuccessorsAndPredecessors() {
+
+        populateExampleGraph(graph);
+
+        TIntHashSet visited = new TIntHashSet();
+
+        Assert.assertTrue(graph.forEachSuccessor(5, visited::add));
+        Assert.assertEquals(new TIntHashSet(new int[] {2, 4}), visited);
+
+        visited.clear();
+        Assert.assertTrue(graph.forEachPredecessor(4, visited::add));
+        Assert.assertEquals(new TIntHashSet(new int[] {5, 7}), visited);
+
+        Assert.assertTrue(graph.forEachSuccessor(3, node -> false));
+        Assert.assertFalse(graph.forEachSuccessor(5, node -> false));
+    }
+
+    @Test
+    public void visitAncestorsAndDescendants() {
+
+        populateExampleGraph(graph);
+
+        TIntHashSet visited = new TIntHashSet();
+
+        Assert.assertTrue(graph.forEachAncestor(4, visited::add));
+        Assert.assertEquals(new TIntHashSet(new int[] {5, 6, 7}), visited);
+
+        visited.clear();
+        Assert.assertTrue(graph.forEachDescendant(6, 1, visited::add));
+        Assert.assertEquals(new TIntHashSet(new int[] {5, 7}), visited);
+
+        // stop as soon as 5 is reached
+        visited.clear();
+        Assert.assertFalse(graph.forEachAncestor(3, node -> visited.add(node) && node != 5));
+        Assert.assertTrue(visited.contains(5));
+        Assert.assertTrue(visited.size() < graph.getAncestors(3).length);
+    }
+
+    @Test
+    public void visitNestedAncestors() {
+
+        populateExampleGraph(graph);
+
+        TIntHashSet visited = new TIntHashSet();
+
+        graph.forEachAncestor(4, ancestor -> graph.forEachAncestor(ancestor, visited::add));
+
+        Assert.assertEquals(new TIntHashSet(new int[] {6}), visited);
+    }
+
+    @Test
+    public void visitSourcesAndSinks() {
+
+        populateExampleGraph(graph);
+
+        TIntHashSet visited = new TIntHashSet();
+
+        Assert.assertTrue(graph.forEachSource(visited::add));
+        Assert.assertEquals(new TIntHashSet(graph.getSources()), visited);
+
+        visited.clear();
+        Assert.assertTrue(graph.forEachSink(visited::add));
+        Assert.assertEquals(new TIntHashSet(new int[] {3}), visited);
+
+        visited.clear();
+        Assert.assertTrue(graph.forEachNode(visited::add));
+        Assert.assertEquals(graph.countNodes(), visited.size());
+    }
+
     @Test
     public void testSubgraphEdgeLabel() {
 
@@ -239,6 +369,112 @@ public abstract class BaseIntGraphTest {
         Assert.assertEquals("6 --- 7", sg.getEdgeLabel(sg.getEdge(6, 7)));
     }
 
+    @Test
+    public void getEdgesWithLabel() {
+
+        populateExampleGraph(graph);
+        labelExampleGraph(graph);
+
+        Assert.assertArrayEquals(new int[] {0, 2, 4, 7}, graph.getEdgesWithLabel("is_a"));
+        Assert.assertArrayEquals(new int[] {3, 6}, graph.getEdgesWithLabel("part_of"));
+        Assert.assertEquals(0, graph.getEdgesWithLabel("regulates").length);
+
+        graph.setEdgeLabel(3, "is_a");
+
+        Assert.assertArrayEquals(new int[] {0, 2, 3, 4, 7}, graph.getEdgesWithLabel("is_a"));
+        Assert.assertArrayEquals(new int[] {6}, graph.getEdgesWithLabel("part_of"));
+    }
+
+    @Test
+    public void traverseEdgesWithLabel() {
+
+        populateExampleGraph(graph);
+        labelExampleGraph(graph);
+
+        Assert.assertArrayEquals(new int[] {4}, graph.getAncestors(3, "is_a"));
+        Assert.assertEquals(new TIntHashSet(new int[] {1, 5}), new TIntHashSet(graph.getAncestors(2, "is_a")));
+        Assert.assertArrayEquals(new int[] {6}, graph.getAncestors(5, "part_of"));
+        Assert.assertArrayEquals(new int[] {7}, graph.getDescendants(6, "is_a"));
+        Assert.assertEquals(new TIntHashSet(new int[] {5, 4}), new TIntHashSet(graph.getDescendants(6, "part_of")));
+        Assert.assertEquals(0, graph.getAncestors(3, "regulates").length);
+
+        TIntHashSet visited = new TIntHashSet();
+        Assert.assertTrue(graph.forEachPredecessor(2, "is_a", visited::add));
+        Assert.assertEquals(new TIntHashSet(new int[] {1, 5}), visited);
+        Assert.assertTrue(graph.forEachSuccessor(4, "is_a", visited::add));
+        Assert.assertEquals(new TIntHashSet(new int[] {1, 5, 3}), visited);
+    }
+
+    /*
+        is_a: 1->2, 5->2, 4->3, 6->7 ; part_of: 5->4, 6->5 ; no label: 2->3, 7->4
+    */
+    static void labelExampleGraph(DirectedGraph graph) {
+
+        graph.setEdgeLabel(graph.getEdge(1, 2), "is_a");
+        graph.setEdgeLabel(graph.getEdge(5, 2), "is_a");
+        graph.setEdgeLabel(graph.getEdge(4, 3), "is_a");
+        graph.setEdgeLabel(graph.getEdge(6, 7), "is_a");
+        graph.setEdgeLabel(graph.getEdge(5, 4), "part_of");
+        graph.setEdgeLabel(graph.getEdge(6, 5), "part_of");
+    }
+
+    @Test
+    public void calcAncestorSubgraph() {
+
+        populateExampleGraph(graph);
+
+        graph.setEdgeLabel(graph.getEdge(6, 7), "is_a");
+        graph.addNodeMetadata(6, "accession", "GO:0000006");
+
+        DirectedGraph sg = graph.calcAncestorSubgraph(4, 2, 4, 42);
+
+        Assert.assertEquals(6, sg.countNodes());
+        Assert.assertEquals(new TIntHashSet(new int[] {1, 2, 4, 5, 6, 7}), new TIntHashSet(sg.getNodes()));
+        Assert.assertEquals(6, sg.countEdges());
+        Assert.assertTrue(sg.containsEdge(1, 2));
+        Assert.assertTrue(sg.containsEdge(5, 2));
+        Assert.assertTrue(sg.containsEdge(5, 4));
+        Assert.assertTrue(sg.containsEdge(7, 4));
+        Assert.assertTrue(sg.containsEdge(6, 5));
+        Assert.assertTrue(sg.containsEdge(6, 7));
+        Assert.assertEquals("is_a", sg.getEdgeLabel(6, 7));
+        Assert.assertEquals(6, sg.getNodeFromMetadata("accession", "GO:0000006"));
+    }
+
+    @Test
+    public void calcDescendantSubgraph() {
+
+        populateExampleGraph(graph);
+
+        DirectedGraph sg = graph.calcDescendantSubgraph(5);
+
+        Assert.assertEquals(new TIntHashSet(new int[] {2, 3, 4, 5}), new TIntHashSet(sg.getNodes()));
+        Assert.assertEquals(4, sg.countEdges());
+        Assert.assertTrue(sg.containsEdge(5, 2));
+        Assert.assertTrue(sg.containsEdge(5, 4));
+        Assert.assertTrue(sg.containsEdge(2, 3));
+        Assert.assertTrue(sg.containsEdge(4, 3));
+    }
+
+    @Test
+    public void calcSubgraphShouldKeepMetadataAndSkipDuplicates() {
+
+        populateExampleGraph(graph);
+
+        graph.addNodeMetadata(5, "accession", "GO:0000005");
+        graph.addNodeMetadata(3, "accession", "GO:0000003");
+
+        DirectedGraph sg = graph.calcSubgraph(5, 4, 5, 12);
+
+        Assert.assertEquals(3, sg.countNodes());
+        Assert.assertEquals(1, sg.countEdges());
+        Assert.assertTrue(sg.containsEdge(5, 4));
+        Assert.assertTrue(sg.containsNode(12));
+        Assert.assertEquals("GO:0000005", sg.getNodeMetadataValue(5, "accession"));
+        Assert.assertEquals(5, sg.getNodeFromMetadata("GO:0000005"));
+        Assert.assertEquals(-1, sg.getNodeFromMetadata("GO:0000003"));
+    }
+
     /*
                 1 ---2--3
             6__ 5 __/  /
@@ -296,4 +532,30 @@ public abstract class BaseIntGraphTest {
         graph.addEdge(3, 7);
         graph.addEdge(3, 8);
     }
-}
\ No newline at end of file
+
+    /*
+        A random DAG where each node n > 0 gets up to maxParents parents chosen among nodes [0, n)
+    */
+    static void populateRandomDag(DirectedGraph graph, int nodeCount, int maxParents, long seed) {
+
+        Random random = new Random(seed);
+
+        graph.addNode(0);
+
+        for (int node=1 ; node<nodeCount ; node++) {
+
+            graph.addNode(node);
+
+            int parentCount = 1 + random.nextInt(maxParents);
+
+            for (int i=0 ; i<parentCount ; i++) {
+
+                int parent = random.nextInt(node);
+
+                if (!graph.containsEdge(parent, node)) {
+                    graph.addEdge(parent, node);
+                }
+            }
+        }
+    }
+}
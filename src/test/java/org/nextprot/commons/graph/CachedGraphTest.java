@@ -0,0 +1,137 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class CachedGraphTest {
+
+    @Test
+    public void repeatedQueriesShouldHitCache() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        CachedGraph cached = new CachedGraph(graph, 1000);
+
+        Assert.assertArrayEquals(new int[] {5, 6, 7}, sorted(cached.getAncestors(4)));
+        Assert.assertArrayEquals(new int[] {5, 6, 7}, sorted(cached.getAncestors(4)));
+        Assert.assertArrayEquals(new int[] {2, 3, 4, 5, 7}, sorted(cached.getDescendants(6)));
+        Assert.assertArrayEquals(new int[] {5, 7}, sorted(cached.getDescendants(6, 1)));
+        Assert.assertArrayEquals(new int[] {2, 3, 4, 5, 7}, sorted(cached.getDescendants(6, 0)));
+
+        Assert.assertEquals(2, cached.getHitCount());
+        Assert.assertEquals(3, cached.getMissCount());
+    }
+
+    @Test
+    public void cachedResultsShouldNotBeExposed() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        CachedGraph cached = new CachedGraph(graph, 1000);
+
+        cached.getAncestors(4)[0] = -1;
+
+        Assert.assertArrayEquals(new int[] {5, 6, 7}, sorted(cached.getAncestors(4)));
+    }
+
+    @Test
+    public void mutationsShouldInvalidateCache() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        CachedGraph cached = new CachedGraph(graph, 1000);
+
+        Assert.assertArrayEquals(new int[] {3}, cached.getDescendants(4));
+
+        cached.addEdge(3, 8);
+        Assert.assertArrayEquals(new int[] {3, 8}, sorted(cached.getDescendants(4)));
+
+        // modified directly
+        graph.addEdge(8, 9);
+        Assert.assertArrayEquals(new int[] {3, 8, 9}, sorted(cached.getDescendants(4)));
+
+        Assert.assertEquals(0, cached.getHitCount());
+        Assert.assertEquals(3, cached.getMissCount());
+    }
+
+    @Test
+    public void resultsComputedDuringMutationShouldNotBeCached() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        AtomicReference<CachedGraph> decorator = new AtomicReference<>();
+        AtomicBoolean racing = new AtomicBoolean(true);
+
+        // not an IntGraph: the first ancestors query races with a mutation made through the decorator
+        DirectedGraph racingGraph = (DirectedGraph) Proxy.newProxyInstance(DirectedGraph.class.getClassLoader(),
+                new Class<?>[] {DirectedGraph.class}, (proxy, method, args) -> {
+
+                    Object result = method.invoke(graph, args);
+
+                    if (method.getName().equals("getAncestors") && racing.getAndSet(false)) {
+                        decorator.get().addEdge(8, 1);
+                    }
+                    return result;
+                });
+
+        CachedGraph cached = new CachedGraph(racingGraph, 1000);
+        decorator.set(cached);
+
+        Assert.assertArrayEquals(new int[0], cached.getAncestors(1));
+        Assert.assertArrayEquals(new int[] {8}, cached.getAncestors(1));
+        Assert.assertArrayEquals(new int[] {8}, cached.getAncestors(1));
+        Assert.assertEquals(1, cached.getHitCount());
+    }
+
+    @Test
+    public void cacheShouldBeBoundedByCachedNodes() {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 1000, 3, 3);
+
+        CachedGraph cached = new CachedGraph(graph.freeze(), 100);
+
+        for (int node=0 ; node<1000 ; node++) {
+            Assert.assertArrayEquals(sorted(graph.getAncestors(node)), sorted(cached.getAncestors(node)));
+        }
+
+        Assert.assertTrue(cached.getCacheStats().evictionCount() > 0);
+        Assert.assertEquals(1000, cached.getMissCount());
+
+        cached.invalidateCache();
+        cached.getAncestors(999);
+
+        Assert.assertEquals(1001, cached.getMissCount());
+    }
+
+    @Test
+    public void emptyResultsShouldBeBoundedToo() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        CachedGraph cached = new CachedGraph(graph, 0);
+
+        // leaves and roots have no descendants and no ancestors
+        Assert.assertEquals(0, cached.getDescendants(3).length);
+        Assert.assertEquals(0, cached.getDescendants(3).length);
+        Assert.assertEquals(0, cached.getAncestors(6).length);
+        Assert.assertEquals(0, cached.getAncestors(6).length);
+
+        Assert.assertEquals(0, cached.getHitCount());
+        Assert.assertEquals(4, cached.getMissCount());
+        Assert.assertTrue(cached.getCacheStats().evictionCount() > 0);
+    }
+}
@@ -0,0 +1,262 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleTree;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+
+public class FrozenIntGraphTest {
+
+    @Test
+    public void frozenGraphShouldAnswerLikeSourceGraph() {
+
+        IntGraph graph = new IntGraph("example");
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(5, "accession", "TS-0005");
+        BaseIntGraphTest.labelExampleGraph(graph);
+
+        assertSameAnswers(graph, graph.freeze());
+    }
+
+    @Test
+    public void frozenTreeShouldAnswerLikeSourceTree() throws DirectedGraph.NotATreeException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleTree(graph);
+
+        FrozenIntGraph frozen = graph.freeze();
+
+        assertSameAnswers(graph, frozen);
+        Assert.assertEquals(graph.calcHeight(), frozen.calcHeight());
+        Assert.assertArrayEquals(sorted(graph.getDescendants(1, 1)), sorted(frozen.getDescendants(1, 1)));
+    }
+
+    @Test
+    public void frozenGraphWithCycleShouldAnswerLikeSourceGraph() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        FrozenIntGraph frozen = graph.freeze();
+
+        Assert.assertEquals(new TIntHashSet(new int[] {1, 2, 3, 5}), new TIntHashSet(frozen.getAncestors(2)));
+        Assert.assertTrue(frozen.isAncestorOf(2, 2));
+        Assert.assertEquals(new TIntHashSet(new int[] {2, 3, 5, 7, 8}), new TIntHashSet(frozen.getDescendants(1)));
+    }
+
+    @Test
+    public void isolatedNodesShouldBeKept() {
+
+        IntGraph graph = new IntGraph();
+        graph.addNode(42);
+        graph.addEdge(1, 2);
+
+        FrozenIntGraph frozen = graph.freeze();
+
+        Assert.assertArrayEquals(new int[] {42, 1, 2}, frozen.getNodes());
+        Assert.assertEquals(0, frozen.getInDegree(42));
+        Assert.assertEquals(0, frozen.getOutDegree(42));
+        Assert.assertEquals(0, frozen.getAncestors(42).length);
+    }
+
+    @Test
+    public void frozenGraphShouldBeIndependentFromSourceGraph() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        FrozenIntGraph frozen = graph.freeze();
+        graph.addEdge(3, 8);
+
+        Assert.assertEquals(8, frozen.countEdges());
+        Assert.assertFalse(frozen.containsNode(8));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void frozenGraphShouldNotAddEdge() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        graph.freeze().addEdge(3, 8);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void frozenGraphShouldNotAddNodeMetadata() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        graph.freeze().addNodeMetadata(1, "label", "node 1");
+    }
+
+    @Test
+    public void closureSubgraphsShouldMatchInducedSubgraphs() {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 3000, 3, 5);
+
+        FrozenIntGraph frozen = graph.freeze();
+        SubgraphView view = graph.getSubgraphView(graph.getNodes());
+        int[] seeds = new Random(3).ints(1000, 0, 3000).toArray();
+
+        DirectedGraph ancestorSubgraph = graph.calcSubgraph(GraphTraversal.withNodesOf(graph, seeds, graph.getAncestors(seeds)));
+        DirectedGraph descendantSubgraph = graph.calcSubgraph(GraphTraversal.withNodesOf(graph, seeds, graph.getDescendants(seeds, 0)));
+
+        for (DirectedGraph actual : new DirectedGraph[] {graph, frozen, view}) {
+
+            assertSameTopology(ancestorSubgraph, actual.calcAncestorSubgraph(seeds));
+            assertSameTopology(descendantSubgraph, actual.calcDescendantSubgraph(seeds));
+        }
+    }
+
+    @Test
+    public void calcSubgraphShouldSkipDuplicates() {
+
+        IntGraph graph = newLabeledExampleGraph();
+
+        assertSameSubgraph(graph.calcSubgraph(6, 5, 4, 5, 12, 4, 6), graph.freeze().calcSubgraph(6, 5, 4, 5, 12, 4, 6));
+    }
+
+    @Test
+    public void closureSubgraphsShouldKeepLabelsAndMetadata() {
+
+        IntGraph graph = newLabeledExampleGraph();
+        FrozenIntGraph frozen = graph.freeze();
+
+        assertSameSubgraph(graph.calcAncestorSubgraph(3, 4), frozen.calcAncestorSubgraph(3, 4));
+        assertSameSubgraph(graph.calcDescendantSubgraph(6), frozen.calcDescendantSubgraph(6));
+        Assert.assertEquals("part_of", frozen.calcDescendantSubgraph(6).getEdgeLabel(6, 5));
+        Assert.assertEquals("TS-0005", frozen.calcAncestorSubgraph(3).getNodeMetadataValue(5, "accession"));
+    }
+
+    /**
+     * @return the example graph with metadata on node 5 and 6 and labels on edges 6->5 and 6->7
+     */
+    static IntGraph newLabeledExampleGraph() {
+
+        IntGraph graph = new IntGraph("example");
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(5, "accession", "TS-0005");
+        graph.addNodeMetadata(6, "accession", "TS-0006");
+        graph.setEdgeLabel(graph.getEdge(6, 7), "is_a");
+        graph.setEdgeLabel(graph.getEdge(6, 5), "part_of");
+
+        return graph;
+    }
+
+    static void assertSameSubgraph(DirectedGraph expected, DirectedGraph actual) {
+
+        Assert.assertArrayEquals(expected.getNodes(), actual.getNodes());
+        Assert.assertArrayEquals(expected.getEdges(), actual.getEdges());
+
+        for (int edge : expected.getEdges()) {
+
+            Assert.assertEquals(expected.getTailNode(edge), actual.getTailNode(edge));
+            Assert.assertEquals(expected.getHeadNode(edge), actual.getHeadNode(edge));
+            Assert.assertEquals(expected.getEdgeLabel(edge), actual.getEdgeLabel(edge));
+        }
+
+        for (int node : expected.getNodes()) {
+            Assert.assertEquals(expected.getNodeMetadataValue(node, "accession"), actual.getNodeMetadataValue(node, "accession"));
+        }
+    }
+
+    private static void assertSameTopology(DirectedGraph expected, DirectedGraph actual) {
+
+        Assert.assertArrayEquals(sorted(expected.getNodes()), sorted(actual.getNodes()));
+        Assert.assertEquals(expected.countEdges(), actual.countEdges());
+
+        for (int edge : expected.getEdges()) {
+            Assert.assertTrue(actual.containsEdge(expected.getTailNode(edge), expected.getHeadNode(edge)));
+        }
+    }
+
+    static void assertSameAnswers(DirectedGraph expected, DirectedGraph actual) {
+
+        Assert.assertEquals(expected.getGraphLabel(), actual.getGraphLabel());
+        Assert.assertArrayEquals(expected.getNodes(), actual.getNodes());
+        Assert.assertArrayEquals(expected.getEdges(), actual.getEdges());
+        Assert.assertEquals(expected.countNodes(), actual.countNodes());
+        Assert.assertEquals(expected.countEdges(), actual.countEdges());
+        Assert.assertArrayEquals(sorted(expected.getSources()), sorted(actual.getSources()));
+        Assert.assertArrayEquals(sorted(expected.getSinks()), sorted(actual.getSinks()));
+
+        for (int edge : expected.getEdges()) {
+
+            int tail = expected.getTailNode(edge);
+            int head = expected.getHeadNode(edge);
+
+            Assert.assertEquals(tail, actual.getTailNode(edge));
+            Assert.assertEquals(head, actual.getHeadNode(edge));
+            Assert.assertEquals(edge, actual.getEdge(tail, head));
+            Assert.assertTrue(actual.containsEdge(edge));
+            Assert.assertTrue(actual.containsEdge(tail, head));
+            Assert.assertEquals(expected.containsEdge(head, tail), actual.containsEdge(head, tail));
+            Assert.assertEquals(expected.getEdgeLabel(edge), actual.getEdgeLabel(edge));
+        }
+
+        for (int node : expected.getNodes()) {
+
+            Assert.assertTrue(actual.containsNode(node));
+            Assert.assertArrayEquals(sorted(expected.getPredecessors(node)), sorted(actual.getPredecessors(node)));
+            Assert.assertArrayEquals(sorted(expected.getSuccessors(node)), sorted(actual.getSuccessors(node)));
+            Assert.assertArrayEquals(sorted(expected.getInEdges(node)), sorted(actual.getInEdges(node)));
+            Assert.assertArrayEquals(sorted(expected.getOutEdges(node)), sorted(actual.getOutEdges(node)));
+            Assert.assertArrayEquals(sorted(expected.getEdgesIncidentTo(node)), sorted(actual.getEdgesIncidentTo(node)));
+            Assert.assertArrayEquals(sorted(expected.getAncestors(node)), sorted(actual.getAncestors(node)));
+            Assert.assertArrayEquals(sorted(expected.getDescendants(node)), sorted(actual.getDescendants(node)));
+            Assert.assertArrayEquals(sorted(expected.getDescendants(node, 1)), sorted(actual.getDescendants(node, 1)));
+            Assert.assertEquals(expected.getInDegree(node), actual.getInDegree(node));
+            Assert.assertEquals(expected.getOutDegree(node), actual.getOutDegree(node));
+            Assert.assertEquals(expected.getNodeMetadataValue(node, "accession"), actual.getNodeMetadataValue(node, "accession"));
+            Assert.assertArrayEquals(sorted(expected.getAncestors(node, "is_a")), sorted(actual.getAncestors(node, "is_a")));
+            Assert.assertArrayEquals(sorted(expected.getDescendants(node, "part_of")), sorted(actual.getDescendants(node, "part_of")));
+
+            TIntHashSet visited = new TIntHashSet();
+            actual.forEachSuccessor(node, visited::add);
+            Assert.assertEquals(new TIntHashSet(expected.getSuccessors(node)), visited);
+
+            visited.clear();
+            actual.forEachAncestor(node, visited::add);
+            Assert.assertEquals(new TIntHashSet(expected.getAncestors(node)), visited);
+
+            for (int other : expected.getNodes()) {
+                Assert.assertEquals(expected.isAncestorOf(node, other), actual.isAncestorOf(node, other));
+            }
+        }
+
+        Assert.assertEquals(expected.getNodeFromMetadata("TS-0005"), actual.getNodeFromMetadata("TS-0005"));
+        Assert.assertEquals(-1, actual.getNodeFromMetadata("unknown"));
+        Assert.assertFalse(actual.containsNode(1000));
+        Assert.assertArrayEquals(expected.getEdgesWithLabel("is_a"), actual.getEdgesWithLabel("is_a"));
+
+        DirectedGraph expectedSubgraph = expected.calcSubgraph(4, 6, 7, 5);
+        DirectedGraph actualSubgraph = actual.calcSubgraph(4, 6, 7, 5);
+
+        Assert.assertEquals(expectedSubgraph.countEdges(), actualSubgraph.countEdges());
+
+        for (int edge : expectedSubgraph.getEdges()) {
+
+            int tail = expectedSubgraph.getTailNode(edge);
+            int head = expectedSubgraph.getHeadNode(edge);
+
+            Assert.assertTrue(actualSubgraph.containsEdge(tail, head));
+            Assert.assertEquals(expectedSubgraph.getEdgeLabel(edge), actualSubgraph.getEdgeLabel(actualSubgraph.getEdge(tail, head)));
+        }
+    }
+
+    static int[] sorted(int[] array) {
+
+        int[] copy = array.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,168 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class GraphTraversalTest {
+
+    @Test
+    public void traversalShouldBeReusable() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        GraphTraversal traversal = new GraphTraversal(graph);
+
+        Assert.assertArrayEquals(new int[] {5, 6, 7}, sorted(traversal.getAncestors(4)));
+        Assert.assertArrayEquals(new int[] {2, 3, 4}, sorted(traversal.getDescendants(5)));
+        Assert.assertArrayEquals(new int[] {1, 5, 6}, sorted(traversal.getAncestors(2)));
+        Assert.assertArrayEquals(new int[] {2, 4, 5, 7}, sorted(traversal.getDescendants(6, 2)));
+        Assert.assertTrue(traversal.isAncestorOf(6, 3));
+        Assert.assertFalse(traversal.isAncestorOf(3, 6));
+        Assert.assertArrayEquals(new int[] {5, 7}, sorted(traversal.getDescendants(6, 1)));
+    }
+
+    @Test
+    public void traversalShouldTerminateOnCycles() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        Assert.assertEquals(new TIntHashSet(new int[] {1, 2, 3, 5}), new TIntHashSet(graph.getAncestors(2)));
+        Assert.assertEquals(new TIntHashSet(new int[] {2, 3, 5, 7, 8}), new TIntHashSet(graph.getDescendants(2)));
+        Assert.assertTrue(graph.isAncestorOf(2, 2));
+        Assert.assertFalse(graph.isAncestorOf(7, 2));
+    }
+
+    @Test
+    public void traversalShouldNotOverflowOnDeepGraphs() {
+
+        IntGraph graph = new IntGraph();
+
+        for (int node=1 ; node<20000 ; node++) {
+            graph.addEdge(node-1, node);
+        }
+
+        Assert.assertEquals(19999, graph.getAncestors(19999).length);
+        Assert.assertEquals(19999, graph.getDescendants(0).length);
+        Assert.assertTrue(graph.isAncestorOf(0, 19999));
+    }
+
+    @Test
+    public void traversalShouldExpandSharedNodesOnce() {
+
+        // a ladder of 200 diamonds has 2^200 paths from top to bottom
+        IntGraph graph = new IntGraph();
+
+        for (int level=0 ; level<200 ; level++) {
+
+            int top = 3*level;
+
+            graph.addEdge(top, top+1);
+            graph.addEdge(top, top+2);
+            graph.addEdge(top+1, top+3);
+            graph.addEdge(top+2, top+3);
+        }
+
+        Assert.assertEquals(600, graph.getAncestors(600).length);
+        Assert.assertEquals(600, graph.getDescendants(0).length);
+        Assert.assertEquals(3, graph.getDescendants(0, 2).length);
+    }
+
+    @Test
+    public void nodesShouldBeGroupedByShortestDistance() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        int[][] descendants = graph.getDescendantsByDistance(6, 0);
+
+        Assert.assertEquals(3, descendants.length);
+        Assert.assertArrayEquals(new int[] {5, 7}, sorted(descendants[0]));
+        Assert.assertArrayEquals(new int[] {2, 4}, sorted(descendants[1]));
+        Assert.assertArrayEquals(new int[] {3}, descendants[2]);
+
+        int[][] ancestors = graph.freeze().getAncestorsByDistance(3, 2);
+
+        Assert.assertEquals(2, ancestors.length);
+        Assert.assertArrayEquals(new int[] {2, 4}, sorted(ancestors[0]));
+        Assert.assertArrayEquals(new int[] {1, 5, 7}, sorted(ancestors[1]));
+
+        Assert.assertEquals(0, graph.getDescendantsByDistance(3, 0).length);
+        Assert.assertEquals(0, graph.getDescendantsByDistance(100, 0).length);
+    }
+
+    @Test
+    public void sharedNodesShouldBeGroupedOnce() {
+
+        IntGraph graph = new IntGraph();
+
+        for (int level=0 ; level<200 ; level++) {
+
+            int top = 3*level;
+
+            graph.addEdge(top, top+1);
+            graph.addEdge(top, top+2);
+            graph.addEdge(top+1, top+3);
+            graph.addEdge(top+2, top+3);
+        }
+
+        int[][] descendants = graph.getDescendantsByDistance(0, 0);
+
+        Assert.assertEquals(400, descendants.length);
+
+        for (int distance=1 ; distance<=descendants.length ; distance++) {
+            Assert.assertEquals((distance % 2 == 1) ? 2 : 1, descendants[distance-1].length);
+        }
+        Assert.assertEquals(4, graph.getDescendantsByDistance(0, 4).length);
+    }
+
+    @Test
+    public void traversalsShouldNestInVisitors() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        TIntHashSet ancestorsOfDescendants = new TIntHashSet();
+
+        graph.forEachDescendant(5, descendant -> {
+            ancestorsOfDescendants.addAll(graph.getAncestors(descendant));
+            return true;
+        });
+
+        Assert.assertEquals(new TIntHashSet(new int[] {1, 2, 4, 5, 6, 7}), ancestorsOfDescendants);
+        Assert.assertArrayEquals(new int[] {2, 3, 4}, sorted(graph.getDescendants(5)));
+    }
+
+    @Test
+    public void queriedGraphShouldBeCollectable() throws InterruptedException {
+
+        WeakReference<IntGraph> reference = queryNewGraph();
+
+        for (int i=0 ; i<50 && reference.get() != null ; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        Assert.assertNull(reference.get());
+    }
+
+    private static WeakReference<IntGraph> queryNewGraph() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        graph.getAncestors(3);
+        graph.getDescendantsByDistance(6, 0);
+        graph.isAncestorOf(6, 3);
+
+        return new WeakReference<>(graph);
+    }
+}
@@ -0,0 +1,171 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class IntGraphBuilderTest {
+
+    @Test
+    public void builtGraphShouldMatchIncrementalGraph() {
+
+        IntGraph expected = new IntGraph("example");
+        populateExampleGraph(expected);
+        expected.addNode(42);
+
+        IntGraphBuilder builder = new IntGraphBuilder("example");
+
+        for (int edge : expected.getEdges()) {
+            builder.addEdge(expected.getTailNode(edge), expected.getHeadNode(edge));
+        }
+        builder.addNode(42);
+
+        IntGraph graph = builder.build();
+
+        Assert.assertEquals("example", graph.getGraphLabel());
+        Assert.assertArrayEquals(sorted(expected.getNodes()), graph.getNodes());
+        Assert.assertEquals(expected.countEdges(), graph.countEdges());
+
+        for (int node : expected.getNodes()) {
+
+            Assert.assertArrayEquals(sorted(expected.getSuccessors(node)), sorted(graph.getSuccessors(node)));
+            Assert.assertArrayEquals(sorted(expected.getPredecessors(node)), sorted(graph.getPredecessors(node)));
+            Assert.assertArrayEquals(sorted(expected.getAncestors(node)), sorted(graph.getAncestors(node)));
+        }
+    }
+
+    @Test
+    public void edgesShouldBeSortedAndDistinct() {
+
+        IntGraph graph = new IntGraphBuilder()
+                .addEdges(new int[] {5, 1, 5, 1, 3}, new int[] {2, 4, 0, 4, 3})
+                .addEdges(LongStream.of(IntGraphBuilder.packEdge(1, 2), IntGraphBuilder.packEdge(5, 0)))
+                .addNode(7)
+                .addNode(7)
+                .build();
+
+        Assert.assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 7}, graph.getNodes());
+        Assert.assertEquals(5, graph.countEdges());
+        Assert.assertEquals(0, graph.getEdge(1, 2));
+        Assert.assertEquals(1, graph.getEdge(1, 4));
+        Assert.assertEquals(2, graph.getEdge(3, 3));
+        Assert.assertEquals(3, graph.getEdge(5, 0));
+        Assert.assertEquals(4, graph.getEdge(5, 2));
+        Assert.assertEquals(2, graph.getInDegree(2));
+        Assert.assertEquals(0, graph.getInDegree(7));
+    }
+
+    @Test
+    public void builtGraphShouldStayMutable() {
+
+        IntGraph graph = new IntGraphBuilder().addEdge(0, 1).addEdge(1, 2).build();
+
+        graph.addEdge(1, 3);
+        graph.addEdge(3, 4);
+        graph.addNodeMetadata(4, "name", "node 4");
+
+        Assert.assertEquals(5, graph.countNodes());
+        Assert.assertArrayEquals(new int[] {2, 3}, sorted(graph.getSuccessors(1)));
+        Assert.assertArrayEquals(new int[] {0, 1, 3}, sorted(graph.getAncestors(4)));
+        Assert.assertEquals(4, graph.getNodeFromMetadata("node 4"));
+    }
+
+    @Test
+    public void builtRandomDagShouldAnswerLikeIncrementalOne() {
+
+        IntGraph incremental = new IntGraph();
+        populateRandomDag(incremental, 3000, 4, 3);
+
+        IntGraphBuilder builder = new IntGraphBuilder();
+
+        for (int edge : incremental.getEdges()) {
+            builder.addEdge(incremental.getTailNode(edge), incremental.getHeadNode(edge));
+        }
+
+        IntGraph graph = builder.build();
+
+        // edge ids differ (sorted by end points) but the topology is the same
+        Assert.assertEquals(incremental.countEdges(), graph.countEdges());
+
+        for (int node : incremental.getNodes()) {
+
+            Assert.assertArrayEquals(sorted(incremental.getSuccessors(node)), sorted(graph.getSuccessors(node)));
+            Assert.assertArrayEquals(sorted(incremental.getPredecessors(node)), sorted(graph.getPredecessors(node)));
+            Assert.assertArrayEquals(sorted(incremental.getDescendants(node)), sorted(graph.getDescendants(node)));
+        }
+    }
+
+    @Test
+    public void radixSortShouldSortLargeArrays() {
+
+        Random random = new Random(5);
+
+        for (int bits : new int[] {10, 33, 62}) {
+
+            long[] values = random.longs(IntGraphBuilder.RADIX_SORT_THRESHOLD * 3, 0, 1L << bits).toArray();
+            long[] expected = values.clone();
+
+            Arrays.sort(expected);
+            IntGraphBuilder.sort(values, bits);
+
+            Assert.assertArrayEquals(expected, values);
+        }
+    }
+
+    @Test
+    public void sparseNodesShouldBeCollected() {
+
+        IntGraph graph = new IntGraphBuilder()
+                .addEdge(2000000000, 7)
+                .addEdge(7, 1500000000)
+                .addNode(3)
+                .build();
+
+        Assert.assertArrayEquals(new int[] {3, 7, 1500000000, 2000000000}, graph.getNodes());
+        Assert.assertEquals(0, graph.getEdge(7, 1500000000));
+    }
+
+    @Test
+    public void largestNodeIdShouldBeCollected() {
+
+        int max = Integer.MAX_VALUE;
+
+        // dense ids collected in a bitset up to the largest int
+        IntGraph dense = new IntGraphBuilder()
+                .addEdge(max, max-2)
+                .addEdge(max-1, max)
+                .addNode(max)
+                .build();
+
+        Assert.assertArrayEquals(new int[] {max-2, max-1, max}, dense.getNodes());
+        Assert.assertEquals(1, dense.getEdge(max, max-2));
+        Assert.assertArrayEquals(new int[] {max-1, max}, sorted(dense.getAncestors(max-2)));
+
+        // sparse ids
+        IntGraph sparse = new IntGraphBuilder()
+                .addEdge(0, max)
+                .build();
+
+        Assert.assertArrayEquals(new int[] {0, max}, sparse.getNodes());
+        Assert.assertEquals(0, sparse.getEdge(0, max));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void negativeNodesShouldBeRejected() {
+
+        new IntGraphBuilder().addEdge(1, -2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void edgeArraysShouldHaveTheSameLength() {
+
+        new IntGraphBuilder().addEdges(new int[] {1, 2}, new int[] {3});
+    }
+}
@@ -31,6 +31,8 @@ public class IntGraphTest extends BaseIntGraphTest {
 
         IntGraph graph = (IntGraph) createGraph();
         populateExampleGraph(graph);
+        graph.addNodeMetadata(4, "accession", "GO:0000004");
+        graph.setEdgeLabel(graph.getEdge(5, 4), "part_of");
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ObjectOutputStream oos = new ObjectOutputStream(baos);
@@ -52,6 +54,63 @@ public class IntGraphTest extends BaseIntGraphTest {
         Assert.assertEquals(2, graphRead.getHeadNode(graphRead.getEdges()[0]));
         Assert.assertEquals(2, graphRead.getTailNode(graphRead.getEdges()[1]));
         Assert.assertEquals(3, graphRead.getHeadNode(graphRead.getEdges()[1]));
+        Assert.assertEquals(6, graphRead.getEdge(6, 5));
+        Assert.assertTrue(graphRead.containsEdge(7, 4));
+        Assert.assertFalse(graphRead.containsEdge(4, 7));
+        Assert.assertEquals(2, graphRead.getInDegree(4));
+        Assert.assertArrayEquals(new int[] {4}, graphRead.getOutEdges(4));
+        Assert.assertEquals("GO:0000004", graphRead.getNodeMetadataValue(4, "accession"));
+        Assert.assertEquals(4, graphRead.getNodeFromMetadata("GO:0000004"));
+        Assert.assertNull(graphRead.getNodeMetadataValue(5, "accession"));
+        Assert.assertEquals("part_of", graphRead.getEdgeLabel(5, 4));
+        Assert.assertArrayEquals(new int[] {graph.getEdge(5, 4)}, graphRead.getEdgesWithLabel("part_of"));
+
+        // slots keep growing after deserialization
+        for (int node=100 ; node<200 ; node++) {
+            graphRead.addEdge(node, 4);
+        }
+        Assert.assertEquals(102, graphRead.getInDegree(4));
+    }
+
+    @Test
+    public void deserializationShouldRejectOtherFormatVersions() throws IOException, ClassNotFoundException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeInt(IntGraph.SERIAL_FORMAT_VERSION + 1);
+        oos.writeObject("label");
+        oos.close();
+
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+
+        try {
+            new IntGraph().readExternal(ois);
+            Assert.fail("a stream of another format version should be rejected");
+        } catch (InvalidClassException e) {
+            Assert.assertTrue(e.getMessage().contains("unsupported serialized format version "+(IntGraph.SERIAL_FORMAT_VERSION+1)));
+        }
+    }
+
+    @Test
+    public void sparseNodesShouldBeMappedToSlots() {
+
+        IntGraph graph = (IntGraph) createGraph();
+
+        // large and sparse node ids
+        for (int i=1 ; i<50000 ; i++) {
+            graph.addEdge((i-1) * 40009, i * 40009);
+        }
+
+        Assert.assertEquals(50000, graph.countNodes());
+        Assert.assertTrue(graph.containsNode(49999 * 40009));
+        Assert.assertFalse(graph.containsNode(40008));
+        Assert.assertArrayEquals(new int[] {0}, graph.getPredecessors(40009));
+        Assert.assertArrayEquals(new int[] {2 * 40009}, graph.getSuccessors(40009));
+        Assert.assertEquals(1, graph.getInDegree(40009));
+        Assert.assertEquals(0, graph.getOutDegree(49999 * 40009));
+        Assert.assertEquals(0, graph.getInDegree(40008));
+        Assert.assertArrayEquals(new int[0], graph.getSuccessors(40008));
+        Assert.assertEquals(49999, graph.getAncestors(49999 * 40009).length);
     }
 
 
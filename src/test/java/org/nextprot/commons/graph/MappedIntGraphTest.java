@@ -0,0 +1,130 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleTree;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.assertSameAnswers;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.assertSameSubgraph;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.newLabeledExampleGraph;
+
+public class MappedIntGraphTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void mappedGraphShouldAnswerLikeSourceGraph() throws IOException {
+
+        IntGraph graph = new IntGraph("example");
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(5, "accession", "TS-0005");
+        graph.addNodeMetadata(5, "name", "R\u00e9seau");
+        graph.addNodeMetadata(6, "accession", "TS-0006");
+        graph.setEdgeLabel(graph.getEdge(6, 7), "is_a");
+        graph.setEdgeLabel(graph.getEdge(6, 5), "part_of");
+
+        MappedIntGraph mapped = writeAndOpen(graph);
+
+        assertSameAnswers(graph, mapped);
+        Assert.assertEquals("R\u00e9seau", mapped.getNodeMetadataValue(5, "name"));
+        Assert.assertNull(mapped.getNodeMetadataValue(5, "unknown"));
+        Assert.assertEquals(5, mapped.getNodeFromMetadata("R\u00e9seau"));
+        Assert.assertEquals(6, mapped.getNodeFromMetadata("TS-0006"));
+        Assert.assertEquals("part_of", mapped.getEdgeLabel(6, 5));
+    }
+
+    @Test
+    public void calcSubgraphShouldSkipDuplicates() throws IOException {
+
+        IntGraph graph = newLabeledExampleGraph();
+        MappedIntGraph mapped = writeAndOpen(graph);
+
+        assertSameSubgraph(graph.calcSubgraph(6, 5, 4, 5, 12, 4, 6), mapped.calcSubgraph(6, 5, 4, 5, 12, 4, 6));
+    }
+
+    @Test
+    public void mappedViewShouldKeepMetadata() throws IOException {
+
+        IntGraph graph = newLabeledExampleGraph();
+        MappedIntGraph mapped = writeAndOpen(graph.getSubgraphView(6, 5, 2));
+
+        Assert.assertEquals("TS-0005", mapped.getNodeMetadataValue(5, "accession"));
+        Assert.assertEquals(6, mapped.getNodeFromMetadata("TS-0006"));
+        Assert.assertEquals("part_of", mapped.getEdgeLabel(6, 5));
+    }
+
+    @Test
+    public void mappedTreeShouldAnswerLikeSourceTree() throws IOException, DirectedGraph.NotATreeException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleTree(graph);
+        graph.addNode(100);
+
+        MappedIntGraph mapped = writeAndOpen(graph);
+
+        assertSameAnswers(graph, mapped);
+        Assert.assertEquals(graph.calcHeight(), mapped.calcHeight());
+    }
+
+    @Test
+    public void emptyGraphShouldBeMapped() throws IOException {
+
+        MappedIntGraph mapped = writeAndOpen(new IntGraph());
+
+        Assert.assertEquals("", mapped.getGraphLabel());
+        Assert.assertEquals(0, mapped.countNodes());
+        Assert.assertEquals(-1, mapped.getNodeFromMetadata("TS-0005"));
+    }
+
+    @Test
+    public void traversalsShouldNotDependOnNodeIdRange() throws IOException {
+
+        // visited bitsets indexed by node id would need 2^31 bits
+        IntGraph graph = new IntGraph();
+        graph.addEdge(Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 2);
+        graph.addEdge(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1);
+        graph.addEdge(Integer.MAX_VALUE - 3, Integer.MAX_VALUE);
+
+        MappedIntGraph mapped = writeAndOpen(graph);
+
+        Assert.assertEquals(3, mapped.getDescendants(Integer.MAX_VALUE - 3).length);
+        Assert.assertEquals(2, mapped.getAncestors(Integer.MAX_VALUE - 1).length);
+        Assert.assertTrue(mapped.isAncestorOf(Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 1));
+        Assert.assertFalse(mapped.isAncestorOf(Integer.MAX_VALUE, Integer.MAX_VALUE - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidFileShouldNotBeOpened() throws IOException {
+
+        Path file = folder.newFile("invalid.graph").toPath();
+        Files.write(file, "not a graph file at all".getBytes());
+
+        MappedIntGraph.open(file);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void mappedGraphShouldNotAddEdge() throws IOException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        writeAndOpen(graph).addEdge(3, 8);
+    }
+
+    private MappedIntGraph writeAndOpen(DirectedGraph graph) throws IOException {
+
+        Path file = folder.newFile().toPath();
+
+        MappedIntGraph.write(graph, file);
+
+        return MappedIntGraph.open(file);
+    }
+}
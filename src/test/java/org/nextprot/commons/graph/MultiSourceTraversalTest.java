@@ -0,0 +1,97 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class MultiSourceTraversalTest {
+
+    @Test
+    public void getDescendantsOfSeveralSeeds() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        Assert.assertArrayEquals(new int[] {2, 3, 4}, sorted(graph.getDescendants(new int[] {1, 5}, 0)));
+        Assert.assertArrayEquals(new int[] {2, 3, 4, 5, 7}, sorted(graph.getDescendants(new int[] {6, 5}, 0)));
+        Assert.assertArrayEquals(new int[] {2, 4, 5, 7}, sorted(graph.getDescendants(new int[] {6, 5}, 1)));
+        Assert.assertArrayEquals(new int[0], graph.getDescendants(new int[] {3, 1000}, 0));
+    }
+
+    @Test
+    public void getAncestorsOfSeveralSeeds() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        Assert.assertArrayEquals(new int[] {1, 2, 4, 5, 6, 7}, sorted(graph.getAncestors(new int[] {3, 4})));
+        Assert.assertArrayEquals(new int[] {5, 7}, sorted(MultiSourceTraversal.getAncestors(graph, new int[] {4}, 1)));
+    }
+
+    @Test
+    public void expansionShouldNotDependOnNodeIdRange() {
+
+        // bitsets indexed by node id would need 2^31 bits
+        IntGraph graph = new IntGraph();
+        graph.addEdge(Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 2);
+        graph.addEdge(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1);
+        graph.addEdge(Integer.MAX_VALUE - 3, Integer.MAX_VALUE);
+
+        Assert.assertArrayEquals(new int[] {Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE},
+                sorted(graph.getDescendants(new int[] {Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 2}, 0)));
+        Assert.assertArrayEquals(new int[] {Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 2},
+                sorted(graph.getSubgraphView(Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1)
+                        .getAncestors(new int[] {Integer.MAX_VALUE - 1})));
+    }
+
+    @Test
+    public void parallelExpansionShouldMatchUnionOfSingleExpansions() {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 20000, 3, 7);
+        FrozenIntGraph frozen = graph.freeze();
+
+        Random random = new Random(7);
+        int[] seeds = new int[2000];
+        for (int i=0 ; i<seeds.length ; i++) {
+            seeds[i] = random.nextInt(20000);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (int maxDepth : new int[] {0, 1, 3}) {
+
+                TIntSet expected = new TIntHashSet();
+                for (int seed : seeds) {
+                    expected.addAll(frozen.getDescendants(seed, maxDepth));
+                }
+
+                int[] descendants = MultiSourceTraversal.getDescendants(frozen, seeds, maxDepth, pool);
+
+                Assert.assertEquals(expected.size(), descendants.length);
+                Assert.assertEquals(expected, new TIntHashSet(descendants));
+            }
+
+            TIntSet expected = new TIntHashSet();
+            for (int seed : seeds) {
+                expected.addAll(graph.getAncestors(seed));
+            }
+
+            int[] ancestors = MultiSourceTraversal.getAncestors(graph, seeds, 0, pool);
+
+            Assert.assertEquals(expected.size(), ancestors.length);
+            Assert.assertEquals(expected, new TIntHashSet(ancestors));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+
+public class ReachabilityLabelsTest {
+
+    @Test
+    public void labelsShouldAnswerLikeTraversals() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+        graph.addNode(100);
+
+        ReachabilityLabels labels = ReachabilityLabels.build(graph);
+
+        for (int node : graph.getNodes()) {
+            for (int other : graph.getNodes()) {
+                Assert.assertEquals(node+" -> "+other, graph.isAncestorOf(node, other), labels.isAncestorOf(node, other));
+            }
+        }
+        Assert.assertFalse(labels.isAncestorOf(1000, 3));
+        Assert.assertFalse(labels.isAncestorOf(6, 1000));
+    }
+
+    @Test
+    public void labelsShouldAnswerLikeClosureOnRandomDags() throws DirectedGraph.CycleDetectedException {
+
+        for (int traversalCount=1 ; traversalCount<=3 ; traversalCount++) {
+
+            IntGraph graph = new IntGraph();
+            populateRandomDag(graph, 300, 3, traversalCount);
+
+            TransitiveClosure closure = TransitiveClosure.build(graph, TransitiveClosure.Representation.DENSE_BITSET);
+            ReachabilityLabels labels = ReachabilityLabels.build(graph, traversalCount, 42);
+
+            Assert.assertEquals(traversalCount, labels.getTraversalCount());
+            // labels and the node of each slot (the slots of the graph are shared)
+            Assert.assertEquals((2L*traversalCount+1) * 300 * 4 + 16 + 300 * 4, labels.getMemoryUsage());
+
+            for (int node : graph.getNodes()) {
+                for (int other : graph.getNodes()) {
+                    Assert.assertEquals(node+" -> "+other, closure.isAncestorOf(node, other), labels.isAncestorOf(node, other));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void labelsOfViewShouldAnswerLikeViewTraversals() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 300, 3, 7);
+
+        int[] members = new int[200];
+        for (int i=0 ; i<members.length ; i++) {
+            members[i] = 299 - i;
+        }
+        SubgraphView view = graph.getSubgraphView(members);
+
+        ReachabilityLabels labels = ReachabilityLabels.build(view);
+
+        for (int node : graph.getNodes()) {
+            for (int other : graph.getNodes()) {
+                Assert.assertEquals(node+" -> "+other, view.isAncestorOf(node, other), labels.isAncestorOf(node, other));
+            }
+        }
+        // the view nodes get their own slot index
+        Assert.assertTrue(labels.getMemoryUsage() > 7L * 200 * 4 + 16 + 200 * 4);
+    }
+
+    @Test(expected = DirectedGraph.CycleDetectedException.class)
+    public void labelsShouldNotBeBuiltOnCyclicGraph() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        ReachabilityLabels.build(graph);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void labelsShouldNeedOneTraversal() throws DirectedGraph.CycleDetectedException {
+
+        ReachabilityLabels.build(new IntGraph(), 0, 42);
+    }
+
+    @Test
+    public void graphLabelsShouldBeRebuiltAfterMutation() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+        graph.setReachabilityLabelsEnabled(true);
+
+        ReachabilityLabels labels = graph.getReachabilityLabels();
+
+        Assert.assertNotNull(labels);
+        Assert.assertSame(labels, graph.getReachabilityLabels());
+        Assert.assertFalse(graph.isAncestorOf(3, 8));
+
+        graph.addEdge(3, 8);
+
+        Assert.assertNotSame(labels, graph.getReachabilityLabels());
+        Assert.assertTrue(graph.isAncestorOf(3, 8));
+        Assert.assertTrue(graph.isAncestorOf(6, 8));
+        Assert.assertFalse(graph.isAncestorOf(8, 6));
+
+        graph.setReachabilityLabelsEnabled(false);
+
+        Assert.assertNull(graph.getReachabilityLabels());
+    }
+}
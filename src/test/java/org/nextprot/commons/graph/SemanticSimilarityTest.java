@@ -0,0 +1,155 @@
+package org.nextprot.commons.graph;
+
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleTree;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class SemanticSimilarityTest {
+
+    @Test
+    public void lowestCommonAncestorsInTree() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleTree(graph);
+
+        SemanticSimilarity similarity = SemanticSimilarity.build(graph);
+
+        Assert.assertArrayEquals(new int[] {2}, similarity.getLowestCommonAncestors(4, 5));
+        Assert.assertArrayEquals(new int[] {2}, similarity.getLowestCommonAncestors(9, 5));
+        Assert.assertArrayEquals(new int[] {1}, similarity.getLowestCommonAncestors(9, 6));
+        Assert.assertArrayEquals(new int[] {4}, similarity.getLowestCommonAncestors(4, 9));
+        Assert.assertArrayEquals(new int[] {2}, similarity.getLowestCommonAncestors(2, 2));
+        Assert.assertArrayEquals(new int[0], similarity.getLowestCommonAncestors(2, 100));
+    }
+
+    @Test
+    public void lowestCommonAncestorsInDag() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        SemanticSimilarity similarity = SemanticSimilarity.build(graph);
+
+        Assert.assertArrayEquals(new int[] {4}, similarity.getLowestCommonAncestors(3, 4));
+        Assert.assertArrayEquals(new int[] {5}, similarity.getLowestCommonAncestors(2, 4));
+        Assert.assertArrayEquals(new int[] {6}, similarity.getLowestCommonAncestors(2, 7));
+        Assert.assertArrayEquals(new int[0], similarity.getLowestCommonAncestors(1, 7));
+        Assert.assertEquals(-1, similarity.getMostInformativeCommonAncestor(1, 7));
+        Assert.assertEquals(0, similarity.calcResnikSimilarity(1, 7), 0);
+    }
+
+    @Test
+    public void crossedParentsShouldBothBeLowestCommonAncestors() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        graph.addEdge(0, 1);
+        graph.addEdge(0, 2);
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 4);
+        graph.addEdge(2, 3);
+        graph.addEdge(2, 4);
+
+        SemanticSimilarity similarity = SemanticSimilarity.build(graph);
+
+        Assert.assertArrayEquals(new int[] {1, 2}, sorted(similarity.getLowestCommonAncestors(3, 4)));
+    }
+
+    @Test
+    public void depthsShouldBeLongestPathLengths() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        SemanticSimilarity similarity = SemanticSimilarity.build(graph);
+
+        Assert.assertEquals(0, similarity.getDepth(6));
+        Assert.assertEquals(2, similarity.getDepth(2));
+        Assert.assertEquals(3, similarity.getDepth(3));
+        Assert.assertEquals(-1, similarity.getDepth(100));
+    }
+
+    @Test
+    public void intrinsicSimilarities() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleTree(graph);
+
+        SemanticSimilarity similarity = SemanticSimilarity.build(graph);
+
+        double icOf2 = 1 - Math.log(4) / Math.log(9);
+
+        Assert.assertEquals(0, similarity.getInformationContent(1), 1e-9);
+        Assert.assertEquals(1, similarity.getInformationContent(9), 1e-9);
+        Assert.assertEquals(icOf2, similarity.getInformationContent(2), 1e-9);
+        Assert.assertEquals(icOf2, similarity.calcResnikSimilarity(4, 5), 1e-9);
+        Assert.assertEquals(2 * icOf2 / (1 - Math.log(2) / Math.log(9) + 1), similarity.calcLinSimilarity(4, 5), 1e-9);
+        Assert.assertEquals(0, similarity.calcLinSimilarity(9, 6), 1e-9);
+        Assert.assertEquals(1, similarity.calcLinSimilarity(9, 9), 1e-9);
+        Assert.assertEquals(1, similarity.calcLinSimilarity(1, 1), 1e-9);
+    }
+
+    @Test
+    public void corpusSimilarities() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleTree(graph);
+
+        TIntIntMap counts = new TIntIntHashMap();
+        counts.put(9, 2);
+        counts.put(5, 1);
+        counts.put(6, 1);
+
+        SemanticSimilarity similarity = SemanticSimilarity.build(graph, counts);
+
+        Assert.assertEquals(0, similarity.getInformationContent(1), 1e-9);
+        Assert.assertEquals(-Math.log(3./4), similarity.getInformationContent(2), 1e-9);
+        Assert.assertEquals(-Math.log(1./4), similarity.getInformationContent(7), 1e-9);
+        Assert.assertEquals(2, similarity.getMostInformativeCommonAncestor(9, 5));
+        Assert.assertEquals(-Math.log(3./4), similarity.calcResnikSimilarity(9, 5), 1e-9);
+        Assert.assertEquals(2 * -Math.log(3./4) / (-Math.log(2./4) - Math.log(1./4)), similarity.calcLinSimilarity(9, 5), 1e-9);
+    }
+
+    @Test
+    public void similarityMatrixShouldMatchPairwiseQueries() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 2000, 3, 7);
+
+        SemanticSimilarity similarity = SemanticSimilarity.build(graph);
+
+        Random random = new Random(11);
+        int[] nodes1 = random.ints(100, 0, 2000).toArray();
+        int[] nodes2 = random.ints(50, 0, 2000).toArray();
+        nodes2[0] = -1;
+
+        double[][] lin = similarity.calcSimilarityMatrix(nodes1, nodes2, SemanticSimilarity.Measure.LIN, new ForkJoinPool(4));
+        double[][] resnik = similarity.calcSimilarityMatrix(nodes1, nodes2, SemanticSimilarity.Measure.RESNIK);
+
+        for (int i=0 ; i<nodes1.length ; i++) {
+            for (int j=0 ; j<nodes2.length ; j++) {
+
+                Assert.assertEquals(similarity.calcLinSimilarity(nodes1[i], nodes2[j]), lin[i][j], 0);
+                Assert.assertEquals(similarity.calcResnikSimilarity(nodes1[i], nodes2[j]), resnik[i][j], 0);
+            }
+        }
+    }
+
+    @Test(expected = DirectedGraph.CycleDetectedException.class)
+    public void similarityShouldNotBeBuiltOnCyclicGraph() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        SemanticSimilarity.build(graph);
+    }
+}
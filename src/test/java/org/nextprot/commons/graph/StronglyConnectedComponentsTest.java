@@ -0,0 +1,120 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class StronglyConnectedComponentsTest {
+
+    @Test
+    public void componentsOfDagShouldBeSingletons() {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 500, 3, 11);
+
+        StronglyConnectedComponents components = graph.calcStronglyConnectedComponents();
+
+        Assert.assertEquals(graph.countNodes(), components.countComponents());
+        Assert.assertTrue(components.isAcyclic());
+        Assert.assertEquals(0, components.getCyclicComponents().length);
+    }
+
+    @Test
+    public void componentsShouldGroupCycles() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+        graph.addEdge(8, 8);
+
+        StronglyConnectedComponents components = graph.calcStronglyConnectedComponents();
+
+        Assert.assertEquals(4, components.countComponents());
+        Assert.assertFalse(components.isAcyclic());
+        Assert.assertTrue(components.isStronglyConnected(2, 5));
+        Assert.assertTrue(components.isStronglyConnected(3, 2));
+        Assert.assertFalse(components.isStronglyConnected(1, 2));
+        Assert.assertFalse(components.isStronglyConnected(1, 100));
+        Assert.assertEquals(-1, components.getComponent(100));
+
+        int cycle = components.getComponent(2);
+
+        Assert.assertArrayEquals(new int[] {2, 3, 5}, sorted(components.getComponentNodes(cycle)));
+        Assert.assertArrayEquals(new int[] {cycle, components.getComponent(8)}, components.getCyclicComponents());
+    }
+
+    @Test
+    public void componentsShouldBeInTopologicalOrder() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        StronglyConnectedComponents components = graph.calcStronglyConnectedComponents();
+
+        for (int edge : graph.getEdges()) {
+            Assert.assertTrue(components.getComponent(graph.getTailNode(edge)) <=
+                    components.getComponent(graph.getHeadNode(edge)));
+        }
+    }
+
+    @Test
+    public void describeCyclicComponentsShouldUseMetadata() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+        graph.addNodeMetadata(2, "accession", "GO:0000002");
+        graph.addNodeMetadata(3, "accession", "GO:0000003");
+
+        StronglyConnectedComponents components = graph.calcStronglyConnectedComponents();
+
+        Assert.assertEquals(1, components.describeCyclicComponents("accession").size());
+
+        String description = components.describeCyclicComponents("accession").get(0);
+
+        Assert.assertTrue(description.contains("GO:0000002"));
+        Assert.assertTrue(description.contains("GO:0000003"));
+        Assert.assertTrue(description.contains("5"));
+    }
+
+    @Test
+    public void condensationShouldBeAcyclic() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        StronglyConnectedComponents components = graph.calcStronglyConnectedComponents();
+        IntGraph condensation = components.calcCondensation();
+
+        int cycle = components.getComponent(2);
+
+        Assert.assertEquals(4, condensation.countNodes());
+        Assert.assertEquals(3, condensation.countEdges());
+        Assert.assertTrue(condensation.containsEdge(components.getComponent(1), cycle));
+        Assert.assertTrue(condensation.containsEdge(cycle, components.getComponent(7)));
+        Assert.assertTrue(condensation.containsEdge(cycle, components.getComponent(8)));
+        Assert.assertEquals(2, condensation.calcTopologicalOrder().getHeight());
+        Assert.assertTrue(condensation.isAncestorOf(components.getComponent(1), components.getComponent(8)));
+    }
+
+    @Test
+    public void frozenGraphShouldHaveSameComponents() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        StronglyConnectedComponents components = graph.calcStronglyConnectedComponents();
+        StronglyConnectedComponents frozenComponents = FrozenIntGraph.of(graph).calcStronglyConnectedComponents();
+
+        Assert.assertEquals(graph.countNodes(), frozenComponents.countComponents());
+
+        for (int node : graph.getNodes()) {
+            Assert.assertEquals(components.getComponent(node), frozenComponents.getComponent(node));
+        }
+        Assert.assertEquals(Collections.emptyList(), frozenComponents.describeCyclicComponents("accession"));
+    }
+}
@@ -0,0 +1,93 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class SubgraphViewTest {
+
+    /*
+           6__ 5 __
+             \     \
+              \     4
+               7 __/
+   */
+    @Test
+    public void viewShouldFilterParentGraph() {
+
+        IntGraph graph = new IntGraph("go");
+        populateExampleGraph(graph);
+        graph.setEdgeLabel(graph.getEdge(6, 7), "is_a");
+        graph.addNodeMetadata(5, "accession", "GO:0000005");
+        graph.addNodeMetadata(3, "accession", "GO:0000003");
+
+        SubgraphView view = graph.getSubgraphView(4, 6, 7, 5, 6, 42);
+
+        Assert.assertEquals("go (subgraph)", view.getGraphLabel());
+        Assert.assertSame(graph, view.getParentGraph());
+        Assert.assertArrayEquals(new int[] {4, 6, 7, 5}, view.getNodes());
+        Assert.assertEquals(4, view.countEdges());
+        Assert.assertFalse(view.containsNode(3));
+        Assert.assertFalse(view.containsNode(42));
+        Assert.assertFalse(view.containsEdge(4, 3));
+        Assert.assertFalse(view.containsEdge(graph.getEdge(4, 3)));
+        Assert.assertEquals(-1, view.getEdge(4, 3));
+        Assert.assertEquals(-1, view.getTailNode(graph.getEdge(4, 3)));
+        Assert.assertEquals(graph.getEdge(6, 7), view.getEdge(6, 7));
+        Assert.assertEquals("is_a", view.getEdgeLabel(view.getEdge(6, 7)));
+
+        Assert.assertArrayEquals(new int[] {6}, view.getSources());
+        Assert.assertArrayEquals(new int[] {4}, view.getSinks());
+        Assert.assertEquals(0, view.getOutDegree(4));
+        Assert.assertEquals(2, view.getInDegree(4));
+        Assert.assertArrayEquals(new int[] {5, 6, 7}, sorted(view.getAncestors(4)));
+        Assert.assertArrayEquals(new int[] {4, 5, 7}, sorted(view.getDescendants(6)));
+        Assert.assertTrue(view.isAncestorOf(6, 4));
+        Assert.assertFalse(view.isAncestorOf(4, 3));
+
+        Assert.assertEquals("GO:0000005", view.getNodeMetadataValue(5, "accession"));
+        Assert.assertEquals(5, view.getNodeFromMetadata("accession", "GO:0000005"));
+        Assert.assertNull(view.getNodeMetadataValue(3, "accession"));
+        Assert.assertEquals(-1, view.getNodeFromMetadata("GO:0000003"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewShouldBeReadOnly() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        graph.getSubgraphView(4, 5).addEdge(4, 5);
+    }
+
+    @Test
+    public void viewShouldAnswerAsExtractedSubgraph() {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 2000, 3, 11);
+
+        Random random = new Random(7);
+        int[] nodes = random.ints(600, 0, 2000).toArray();
+
+        DirectedGraph extracted = graph.calcSubgraph(nodes);
+        SubgraphView view = graph.getSubgraphView(nodes);
+        SubgraphView frozenView = graph.freeze().getSubgraphView(nodes);
+
+        Assert.assertArrayEquals(sorted(extracted.getNodes()), sorted(view.getNodes()));
+        Assert.assertEquals(extracted.countEdges(), view.countEdges());
+        Assert.assertEquals(extracted.countEdges(), frozenView.countEdges());
+
+        for (int node : extracted.getNodes()) {
+
+            Assert.assertArrayEquals(sorted(extracted.getSuccessors(node)), sorted(view.getSuccessors(node)));
+            Assert.assertArrayEquals(sorted(extracted.getPredecessors(node)), sorted(view.getPredecessors(node)));
+            Assert.assertArrayEquals(sorted(extracted.getAncestors(node)), sorted(view.getAncestors(node)));
+            Assert.assertArrayEquals(sorted(extracted.getDescendants(node)), sorted(frozenView.getDescendants(node)));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleTree;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class TopologicalOrderTest {
+
+    @Test
+    public void orderShouldPutTailsBeforeHeads() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        TopologicalOrder order = graph.calcTopologicalOrder();
+        int[] nodes = order.getNodes();
+
+        Assert.assertEquals(7, order.countNodes());
+
+        for (int edge : graph.getEdges()) {
+            Assert.assertTrue(indexOf(nodes, graph.getTailNode(edge)) < indexOf(nodes, graph.getHeadNode(edge)));
+        }
+    }
+
+    @Test
+    public void depthsShouldBeLongestPathLengths() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+        graph.addNode(100);
+
+        TopologicalOrder order = graph.calcTopologicalOrder();
+
+        Assert.assertEquals(0, order.getDepth(6));
+        Assert.assertEquals(0, order.getDepth(1));
+        Assert.assertEquals(1, order.getDepth(7));
+        Assert.assertEquals(2, order.getDepth(4));
+        Assert.assertEquals(3, order.getDepth(3));
+        Assert.assertEquals(0, order.getDepth(100));
+        Assert.assertEquals(-1, order.getDepth(1000));
+        Assert.assertEquals(3, order.getHeight());
+
+        int[] nodes = order.getNodes();
+        int[] depths = order.getDepths();
+
+        for (int i=0 ; i<nodes.length ; i++) {
+            Assert.assertEquals(order.getDepth(nodes[i]), depths[i]);
+        }
+    }
+
+    @Test
+    public void heightShouldConsiderAllRoots() throws DirectedGraph.NotATreeException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleTree(graph);
+        graph.addEdge(20, 21);
+        graph.addEdge(21, 22);
+        graph.addEdge(22, 23);
+        graph.addEdge(23, 24);
+
+        Assert.assertEquals(4, graph.calcHeight());
+    }
+
+    @Test
+    public void heightShouldBeLinearOnDiamonds() throws DirectedGraph.NotATreeException {
+
+        // a ladder of 200 diamonds has 2^200 paths from top to bottom
+        IntGraph graph = new IntGraph();
+
+        for (int level=0 ; level<200 ; level++) {
+
+            int top = 3*level;
+
+            graph.addEdge(top, top+1);
+            graph.addEdge(top, top+2);
+            graph.addEdge(top+1, top+3);
+            graph.addEdge(top+2, top+3);
+        }
+
+        Assert.assertEquals(400, graph.calcHeight());
+    }
+
+    @Test
+    public void cycleShouldBeReportedWithItsPath() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        try {
+            graph.calcTopologicalOrder();
+            Assert.fail();
+        } catch (DirectedGraph.CycleDetectedException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().endsWith("path={2, 5, 3, 2}"));
+        }
+    }
+
+    @Test(expected = DirectedGraph.NotATreeException.class)
+    public void heightShouldNeedARoot() throws DirectedGraph.NotATreeException {
+
+        IntGraph graph = new IntGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 1);
+
+        graph.calcHeight();
+    }
+
+    @Test
+    public void levelsShouldPartitionNodesByDepth() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        TopologicalOrder order = graph.calcTopologicalOrder();
+
+        Assert.assertEquals(4, order.countLevels());
+        Assert.assertArrayEquals(new int[] {1, 6}, sorted(order.getLevel(0)));
+        Assert.assertArrayEquals(new int[] {5, 7}, sorted(order.getLevel(1)));
+        Assert.assertArrayEquals(new int[] {2, 4}, sorted(order.getLevel(2)));
+        Assert.assertArrayEquals(new int[] {3}, order.getLevel(3));
+        Assert.assertEquals(0, order.getLevel(4).length);
+        Assert.assertEquals(0, new IntGraph().calcTopologicalOrder().countLevels());
+    }
+
+    @Test
+    public void orderShouldBeCachedUntilGraphChanges() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        TopologicalOrder order = graph.calcTopologicalOrder();
+
+        Assert.assertSame(order, graph.calcTopologicalOrder());
+
+        graph.addEdge(3, 8);
+
+        Assert.assertNotSame(order, graph.calcTopologicalOrder());
+        Assert.assertEquals(4, graph.calcTopologicalOrder().getDepth(8));
+    }
+
+    @Test
+    public void levelsShouldBeProcessedAfterTheirNeighbours() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 20000, 3, 17);
+
+        TopologicalOrder order = graph.calcTopologicalOrder();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        // longest path to a sink computed bottom-up, to a source computed top-down
+        AtomicIntegerArray heights = new AtomicIntegerArray(20000);
+        AtomicIntegerArray depths = new AtomicIntegerArray(20000);
+        AtomicIntegerArray visits = new AtomicIntegerArray(20000);
+
+        try {
+            order.processLevels(TopologicalOrder.Direction.BOTTOM_UP, node -> {
+
+                visits.incrementAndGet(node);
+
+                int height = 0;
+                for (int successor : graph.getSuccessors(node)) {
+                    Assert.assertEquals(1, visits.get(successor));
+                    height = Math.max(height, heights.get(successor) + 1);
+                }
+                heights.set(node, height);
+            }, pool);
+
+            order.processLevels(TopologicalOrder.Direction.TOP_DOWN, node -> {
+
+                int depth = 0;
+                for (int predecessor : graph.getPredecessors(node)) {
+                    depth = Math.max(depth, depths.get(predecessor) + 1);
+                }
+                depths.set(node, depth);
+            }, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int node=0 ; node<20000 ; node++) {
+
+            Assert.assertEquals(1, visits.get(node));
+            Assert.assertEquals(order.getDepth(node), depths.get(node));
+
+            int height = 0;
+            for (int successor : graph.getSuccessors(node)) {
+                height = Math.max(height, heights.get(successor) + 1);
+            }
+            Assert.assertEquals(height, heights.get(node));
+        }
+    }
+
+    private static int indexOf(int[] array, int value) {
+
+        for (int i=0 ; i<array.length ; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
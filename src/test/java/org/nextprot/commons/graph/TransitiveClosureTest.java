@@ -0,0 +1,122 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class TransitiveClosureTest {
+
+    @Test
+    public void denseBitsetClosureShouldMatchTraversals() throws DirectedGraph.CycleDetectedException {
+
+        assertClosureMatchesTraversals(TransitiveClosure.Representation.DENSE_BITSET);
+    }
+
+    @Test
+    public void sortedArraysClosureShouldMatchTraversals() throws DirectedGraph.CycleDetectedException {
+
+        assertClosureMatchesTraversals(TransitiveClosure.Representation.SORTED_ARRAYS);
+    }
+
+    @Test(expected = DirectedGraph.CycleDetectedException.class)
+    public void closureShouldNotBeBuiltOnCyclicGraph() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        TransitiveClosure.build(graph, TransitiveClosure.Representation.SORTED_ARRAYS);
+    }
+
+    @Test
+    public void memoryUsageShouldBeAccounted() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        TransitiveClosure dense = TransitiveClosure.build(graph, TransitiveClosure.Representation.DENSE_BITSET);
+
+        // 7 nodes: one word per row, 7 rows per matrix, and the node of each slot
+        Assert.assertEquals(2 * 7 * 8 + 16 + 7 * 4, dense.getMemoryUsage());
+        Assert.assertEquals(dense.getMemoryUsage(), TransitiveClosure.estimateMemoryUsage(7, TransitiveClosure.Representation.DENSE_BITSET));
+        Assert.assertTrue(TransitiveClosure.build(graph, TransitiveClosure.Representation.SORTED_ARRAYS).getMemoryUsage() > 0);
+        Assert.assertEquals(TransitiveClosure.Representation.DENSE_BITSET, TransitiveClosure.suggestRepresentation(10000));
+        Assert.assertEquals(TransitiveClosure.Representation.SORTED_ARRAYS, TransitiveClosure.suggestRepresentation(200000));
+    }
+
+    @Test
+    public void closureOfViewShouldAnswerLikeView() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        SubgraphView view = graph.getSubgraphView(6, 5, 4, 3);
+        TransitiveClosure closure = TransitiveClosure.build(view, TransitiveClosure.Representation.DENSE_BITSET);
+
+        Assert.assertEquals(4, closure.countNodes());
+        Assert.assertArrayEquals(new int[] {3, 4, 5}, sorted(closure.getDescendants(6)));
+        Assert.assertArrayEquals(new int[0], closure.getAncestors(1));
+        Assert.assertFalse(closure.isAncestorOf(1, 3));
+        // the view nodes get their own slot index
+        Assert.assertTrue(closure.getMemoryUsage() > TransitiveClosure.estimateMemoryUsage(4, TransitiveClosure.Representation.DENSE_BITSET));
+    }
+
+    @Test
+    public void graphClosureShouldBeRebuiltAfterMutation() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+        graph.setTransitiveClosureRepresentation(TransitiveClosure.Representation.SORTED_ARRAYS);
+
+        Assert.assertNotNull(graph.getTransitiveClosure());
+        Assert.assertFalse(graph.isAncestorOf(3, 8));
+
+        graph.addEdge(3, 8);
+
+        Assert.assertTrue(graph.isAncestorOf(3, 8));
+        Assert.assertTrue(graph.isAncestorOf(6, 8));
+        Assert.assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6, 7}, sorted(graph.getAncestors(8)));
+    }
+
+    @Test
+    public void graphClosureShouldNotBeUsedOnCyclicGraph() {
+
+        IntGraph graph = new IntGraph();
+        graph.setTransitiveClosureRepresentation(TransitiveClosure.Representation.DENSE_BITSET);
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+
+        Assert.assertNotNull(graph.getTransitiveClosure());
+
+        graph.addEdge(3, 2);
+
+        Assert.assertNull(graph.getTransitiveClosure());
+    }
+
+    private static void assertClosureMatchesTraversals(TransitiveClosure.Representation representation) throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+        graph.addNode(100);
+
+        TransitiveClosure closure = TransitiveClosure.build(graph, representation);
+
+        Assert.assertEquals(representation, closure.getRepresentation());
+        Assert.assertEquals(8, closure.countNodes());
+
+        for (int node : graph.getNodes()) {
+
+            Assert.assertArrayEquals(sorted(graph.getAncestors(node)), sorted(closure.getAncestors(node)));
+            Assert.assertArrayEquals(sorted(graph.getDescendants(node)), sorted(closure.getDescendants(node)));
+
+            for (int other : graph.getNodes()) {
+                Assert.assertEquals(graph.isAncestorOf(node, other), closure.isAncestorOf(node, other));
+            }
+        }
+
+        Assert.assertEquals(0, closure.getAncestors(1000).length);
+        Assert.assertFalse(closure.isAncestorOf(1000, 3));
+    }
+}
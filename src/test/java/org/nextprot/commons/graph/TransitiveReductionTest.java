@@ -0,0 +1,124 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraphWithCycle;
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateRandomDag;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.sorted;
+
+public class TransitiveReductionTest {
+
+    /*
+        the example graph with the redundant edges 1->3 (8), 6->4 (9) and 6->3 (10)
+    */
+    private static IntGraph newExampleGraphWithShortcuts() {
+
+        IntGraph graph = new IntGraph("example");
+        populateExampleGraph(graph);
+
+        graph.addEdge(1, 3);
+        graph.addEdge(6, 4);
+        graph.addEdge(6, 3);
+
+        return graph;
+    }
+
+    @Test
+    public void reductionShouldDropRedundantEdges() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = newExampleGraphWithShortcuts();
+        graph.setEdgeLabel(graph.getEdge(6, 7), "is_a");
+        graph.addNodeMetadata(6, "accession", "GO:0000006");
+
+        TransitiveReduction reduction = graph.calcTransitiveReduction();
+        IntGraph reduced = reduction.getReducedGraph();
+
+        Assert.assertEquals(3, reduction.countRedundantEdges());
+        Assert.assertArrayEquals(new int[] {8, 9, 10}, reduction.getRedundantEdges());
+        Assert.assertEquals(7, reduced.countNodes());
+        Assert.assertEquals(8, reduced.countEdges());
+        Assert.assertFalse(reduced.containsEdge(1, 3));
+        Assert.assertFalse(reduced.containsEdge(6, 4));
+        Assert.assertEquals("is_a", reduced.getEdgeLabel(6, 7));
+        Assert.assertEquals("GO:0000006", reduced.getNodeMetadataValue(6, "accession"));
+    }
+
+    @Test
+    public void reductionOfReducedGraphShouldDropNothing() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        Assert.assertEquals(0, graph.calcTransitiveReduction().countRedundantEdges());
+    }
+
+    @Test
+    public void reductionShouldBeMinimalAndKeepReachability() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateRandomDag(graph, 2000, 4, 5);
+
+        TransitiveReduction reduction = TransitiveReduction.of(graph, new ForkJoinPool(3));
+        IntGraph reduced = reduction.getReducedGraph();
+
+        Assert.assertTrue(reduction.countRedundantEdges() > 0);
+        Assert.assertEquals(graph.countEdges() - reduction.countRedundantEdges(), reduced.countEdges());
+
+        for (int node : graph.getNodes()) {
+            Assert.assertArrayEquals(sorted(graph.getDescendants(node)), sorted(reduced.getDescendants(node)));
+        }
+
+        for (int edge : reduced.getEdges()) {
+
+            int tail = reduced.getTailNode(edge);
+            int head = reduced.getHeadNode(edge);
+
+            for (int successor : reduced.getSuccessors(tail)) {
+                Assert.assertFalse(successor != head && reduced.isAncestorOf(successor, head));
+            }
+        }
+
+        Assert.assertArrayEquals(reduction.getRedundantEdges(),
+                TransitiveReduction.of(graph.freeze()).getRedundantEdges());
+    }
+
+    @Test
+    public void redundantEdgesShouldBeEdgesOfTheGivenGraph() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = newExampleGraphWithShortcuts();
+
+        TransitiveReduction reduction = graph.getSubgraphView(6, 5, 4, 3).calcTransitiveReduction();
+
+        Assert.assertArrayEquals(new int[] {graph.getEdge(6, 4), graph.getEdge(6, 3)},
+                sorted(reduction.getRedundantEdges()));
+    }
+
+    @Test
+    public void reductionOfViewShouldKeepMetadata() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = newExampleGraphWithShortcuts();
+        graph.addNodeMetadata(6, "accession", "GO:0000006");
+        graph.addNodeMetadata(4, "accession", "GO:0000004");
+        graph.addNodeMetadata(1, "accession", "GO:0000001");
+
+        IntGraph reduced = graph.getSubgraphView(6, 5, 4, 3).calcTransitiveReduction().getReducedGraph();
+
+        Assert.assertEquals("GO:0000006", reduced.getNodeMetadataValue(6, "accession"));
+        Assert.assertEquals("GO:0000004", reduced.getNodeMetadataValue(4, "accession"));
+        Assert.assertNull(reduced.getNodeMetadataValue(5, "accession"));
+        Assert.assertEquals(-1, reduced.getNodeFromMetadata("GO:0000001"));
+    }
+
+    @Test(expected = DirectedGraph.CycleDetectedException.class)
+    public void reductionShouldFailOnCycles() throws DirectedGraph.CycleDetectedException {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraphWithCycle(graph);
+
+        graph.calcTransitiveReduction();
+    }
+}
@@ -0,0 +1,176 @@
+package org.nextprot.commons.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.nextprot.commons.graph.BaseIntGraphTest.populateExampleGraph;
+import static org.nextprot.commons.graph.FrozenIntGraphTest.assertSameAnswers;
+
+public class VersionedGraphTest {
+
+    @Test
+    public void updatesShouldPublishNewVersions() {
+
+        IntGraph graph = new IntGraph("go");
+        populateExampleGraph(graph);
+
+        VersionedGraph versionedGraph = new VersionedGraph(graph);
+        FrozenIntGraph first = versionedGraph.getSnapshot();
+
+        Assert.assertEquals(0, versionedGraph.getVersion());
+        assertSameAnswers(graph, first);
+
+        FrozenIntGraph second = versionedGraph.update(g -> {
+            g.setEdgeLabel(g.addEdge(3, 10), "is_a");
+            g.addNodeMetadata(10, "accession", "GO:0000010");
+        });
+
+        Assert.assertEquals(1, versionedGraph.getVersion());
+        Assert.assertSame(second, versionedGraph.getSnapshot());
+        Assert.assertEquals(1, versionedGraph.getCurrentVersion().getNumber());
+        Assert.assertSame(second, versionedGraph.getCurrentVersion().getSnapshot());
+        Assert.assertEquals("go", second.getGraphLabel());
+        Assert.assertEquals(8, second.countNodes());
+        Assert.assertEquals("is_a", second.getEdgeLabel(3, 10));
+        Assert.assertEquals(10, second.getNodeFromMetadata("GO:0000010"));
+
+        // the previous snapshot is left untouched
+        Assert.assertEquals(7, first.countNodes());
+        Assert.assertFalse(first.containsNode(10));
+    }
+
+    @Test
+    public void failedUpdateShouldNotBePublished() {
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+        graph.addNodeMetadata(1, "accession", "GO:0000001");
+        graph.setEdgeLabel(0, "part_of");
+
+        VersionedGraph versionedGraph = new VersionedGraph(graph);
+        FrozenIntGraph snapshot = versionedGraph.getSnapshot();
+
+        try {
+            versionedGraph.update(g -> {
+                g.addEdge(3, 10);
+                // already existing edge
+                g.addEdge(1, 2);
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertSame(snapshot, versionedGraph.getSnapshot());
+            Assert.assertEquals(0, versionedGraph.getVersion());
+        }
+
+        // the partial changes of the failed update are dropped
+        FrozenIntGraph next = versionedGraph.update(g -> g.addEdge(3, 11));
+
+        Assert.assertFalse(next.containsNode(10));
+        Assert.assertTrue(next.containsEdge(3, 11));
+        Assert.assertEquals(1, next.getNodeFromMetadata("GO:0000001"));
+        Assert.assertEquals("part_of", next.getEdgeLabel(0));
+    }
+
+    @Test
+    public void replaceShouldPublishACopy() {
+
+        VersionedGraph versionedGraph = new VersionedGraph("empty");
+
+        IntGraph graph = new IntGraph();
+        populateExampleGraph(graph);
+
+        FrozenIntGraph snapshot = versionedGraph.replace(graph);
+        graph.addEdge(3, 10);
+
+        Assert.assertEquals(1, versionedGraph.getVersion());
+        Assert.assertEquals(7, snapshot.countNodes());
+        Assert.assertEquals(9, versionedGraph.update(g -> g.addEdge(3, 12)).countEdges());
+    }
+
+    /**
+     * Readers check the invariants of a growing chain (node i has ancestors 0..i-1 and metadata "node i") while a
+     * writer keeps publishing new versions
+     */
+    @Test
+    public void readersShouldAlwaysSeeConsistentSnapshots() throws InterruptedException {
+
+        VersionedGraph versionedGraph = new VersionedGraph("chain");
+        versionedGraph.update(g -> {
+            g.addNode(0);
+            g.addNodeMetadata(0, "name", "node 0");
+        });
+
+        int updateCount = 1000;
+        int readerCount = 4;
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(readerCount);
+        List<Thread> readers = new ArrayList<>();
+
+        for (int r=0 ; r<readerCount ; r++) {
+
+            Thread reader = new Thread(() -> {
+
+                long lastVersion = -1;
+                started.countDown();
+
+                try {
+                    while (!done.get()) {
+
+                        VersionedGraph.Version current = versionedGraph.getCurrentVersion();
+                        long version = current.getNumber();
+                        FrozenIntGraph snapshot = current.getSnapshot();
+
+                        int last = snapshot.countNodes()-1;
+
+                        // version n is the chain of n nodes
+                        Assert.assertEquals(version, snapshot.countNodes());
+                        Assert.assertTrue(version >= lastVersion);
+                        Assert.assertEquals(last, snapshot.countEdges());
+                        Assert.assertEquals(last, snapshot.getAncestors(last).length);
+                        Assert.assertEquals(0, snapshot.getDescendants(last).length);
+                        Assert.assertEquals("node "+last, snapshot.getNodeMetadataValue(last, "name"));
+                        Assert.assertEquals(last, snapshot.getNodeFromMetadata("node "+last));
+
+                        lastVersion = version;
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        started.await();
+
+        for (int node=1 ; node<=updateCount ; node++) {
+
+            int newNode = node;
+
+            versionedGraph.update(g -> {
+                g.addEdge(newNode-1, newNode);
+                g.addNodeMetadata(newNode, "name", "node "+newNode);
+            });
+        }
+        done.set(true);
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        Assert.assertEquals(updateCount+1, versionedGraph.getVersion());
+        Assert.assertEquals(updateCount+1, versionedGraph.getSnapshot().countNodes());
+    }
+}